@@ -0,0 +1,120 @@
+package dev.akgamerz_790.discordmc;
+
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SET_ACTIVITY encoding: {@link ActivityEncoder} streaming into the pooled frame buffer, against
+ * the Gson object tree and heap frame that {@code setActivity} used to build per update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActivityEncodingBenchmark {
+    @Param({"menu", "multiplayer"})
+    public String activity;
+
+    private final IpcFrameWriter writer = new IpcFrameWriter(64 * 1024);
+    private DiscordIpcClient.Activity input;
+    private long nonce;
+
+    @Setup
+    public void setUp() {
+        input = BenchmarkData.activity(activity);
+    }
+
+    @Benchmark
+    public ByteBuffer encoder() throws IOException {
+        ActivityEncoder.encode(input, ++nonce, writer.begin(DiscordIpcClient.OP_FRAME));
+        return writer.finish();
+    }
+
+    @Benchmark
+    public ByteBuffer gsonTree() {
+        return legacyFrame(input);
+    }
+
+    // The pre-encoder setActivity and writeFrame, kept as the baseline.
+    private static ByteBuffer legacyFrame(DiscordIpcClient.Activity activity) {
+        JsonObject root = new JsonObject();
+        root.addProperty("cmd", "SET_ACTIVITY");
+
+        JsonObject args = new JsonObject();
+        args.addProperty("pid", ProcessHandle.current().pid());
+
+        JsonObject payload = new JsonObject();
+        addIfPresent(payload, "state", activity.state());
+        addIfPresent(payload, "details", activity.details());
+
+        JsonObject timestamps = new JsonObject();
+        if (activity.startTimestamp() > 0) {
+            timestamps.addProperty("start", activity.startTimestamp());
+        }
+        if (!timestamps.entrySet().isEmpty()) {
+            payload.add("timestamps", timestamps);
+        }
+
+        JsonObject assets = new JsonObject();
+        addIfPresent(assets, "large_image", activity.largeImageKey());
+        addIfPresent(assets, "large_text", activity.largeImageText());
+        addIfPresent(assets, "small_image", activity.smallImageKey());
+        addIfPresent(assets, "small_text", activity.smallImageText());
+        if (!assets.entrySet().isEmpty()) {
+            payload.add("assets", assets);
+        }
+
+        JsonObject party = new JsonObject();
+        addIfPresent(party, "id", activity.partyId());
+        if (activity.partySize() > 0 && activity.partyMax() >= activity.partySize()) {
+            party.addProperty("size", activity.partySize());
+            party.addProperty("max", activity.partyMax());
+        }
+        if (!party.entrySet().isEmpty()) {
+            payload.add("party", party);
+        }
+
+        JsonObject secrets = new JsonObject();
+        addIfPresent(secrets, "join", activity.joinSecret());
+        if (!secrets.entrySet().isEmpty()) {
+            payload.add("secrets", secrets);
+            payload.addProperty("instance", true);
+        }
+
+        args.add("activity", payload);
+        root.add("args", args);
+        root.addProperty("nonce", UUID.randomUUID().toString());
+
+        byte[] bytes = root.toString().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = ByteBuffer.allocate(IpcFrameWriter.HEADER_LENGTH + bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+        frame.putInt(DiscordIpcClient.OP_FRAME);
+        frame.putInt(bytes.length);
+        frame.put(bytes);
+        return frame.flip();
+    }
+
+    private static void addIfPresent(JsonObject obj, String key, String value) {
+        if (value != null && !value.isBlank()) {
+            obj.addProperty(key, value);
+        }
+    }
+}
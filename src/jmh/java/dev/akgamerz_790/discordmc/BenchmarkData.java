@@ -0,0 +1,48 @@
+package dev.akgamerz_790.discordmc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic inputs shaped like what a Hypixel session produces, shared by the benchmarks.
+ */
+final class BenchmarkData {
+    static final String HYPIXEL_MOTD = "\u00A7f                \u00A7aHypixel Network \u00A7c[1.8-1.21]\n\u00A76\u00A7lSKYBLOCK 0.23 \u00A78| \u00A7b\u00A7lBED WARS UPDATE";
+    static final String UNKNOWN_MOTD = "\u00A77A Minecraft Server \u00A78| \u00A7eSurvival \u00A78| \u00A7aJoin now!";
+
+    private BenchmarkData() {
+    }
+
+    static DiscordIpcClient.Activity activity(String kind) {
+        if (kind.equals("menu")) {
+            return new DiscordIpcClient.Activity("In Minecraft", "In the menus", "minecraft", "Minecraft",
+                null, null, null, 0, 0, null, 1_760_000_000L);
+        }
+        return new DiscordIpcClient.Activity(
+            "Team Red",
+            "Playing on Hypixel (48213/200000) | Playing BED WARS 4v4 on Lighthouse",
+            "overworld",
+            "Minecraft",
+            "hypixel_net",
+            "Hypixel",
+            "server:mc.hypixel.net",
+            48213,
+            200000,
+            "mc.hypixel.net",
+            1_760_000_000L
+        );
+    }
+
+    /**
+     * {@code count} networks with two hosts each, such as {@code network42.net} and
+     * {@code play.network42.org}, and no MOTD keywords.
+     */
+    static List<ServerRegistry.Definition> definitions(int count) {
+        List<ServerRegistry.Definition> definitions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            definitions.add(new ServerRegistry.Definition("Network " + i,
+                List.of("network" + i + ".net", "play.network" + i + ".org"), "network_" + i, List.of()));
+        }
+        return definitions;
+    }
+}
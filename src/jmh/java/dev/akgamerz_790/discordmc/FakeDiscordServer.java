@@ -0,0 +1,305 @@
+package dev.akgamerz_790.discordmc;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A stand-in for the Discord desktop app on a Unix domain socket, speaking the IPC framing:
+ * READY after a handshake, an ack or ERROR for every SET_ACTIVITY, PONG for PING, and CLOSE for
+ * a bad client id. Replies can be delayed, the server can stop answering altogether, and open
+ * connections can be pinged, closed with a CLOSE frame or dropped. One thread per connection.
+ */
+final class FakeDiscordServer implements Closeable {
+    private static final int OP_HANDSHAKE = 0;
+    private static final int OP_FRAME = 1;
+    private static final int OP_CLOSE = 2;
+    private static final int OP_PING = 3;
+    private static final int OP_PONG = 4;
+    private static final int MAX_FRAME_LENGTH = 1_048_576;
+    private static final String READY = "{\"cmd\":\"DISPATCH\",\"data\":{\"v\":1,\"config\":{\"cdn_host\":\"cdn.discordapp.com\","
+        + "\"api_endpoint\":\"//discord.com/api\",\"environment\":\"production\"},\"user\":{\"id\":\"0\",\"username\":\"harness\"}},"
+        + "\"evt\":\"READY\",\"nonce\":null}";
+
+    private final Path socket;
+    private final ServerSocketChannel server;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger rejectNext = new AtomicInteger();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong handshakes = new AtomicLong();
+    private final AtomicLong acks = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong pongs = new AtomicLong();
+    private final AtomicLong activities = new AtomicLong();
+    private volatile String lastState;
+    private volatile long readyDelayMillis;
+    private volatile long ackDelayMillis;
+    private volatile boolean stalled;
+    private volatile boolean closed;
+
+    private FakeDiscordServer(Path socket, ServerSocketChannel server) {
+        this.socket = socket;
+        this.server = server;
+    }
+
+    static FakeDiscordServer start(Path socket) throws IOException {
+        Files.deleteIfExists(socket);
+        ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.bind(UnixDomainSocketAddress.of(socket));
+        FakeDiscordServer server = new FakeDiscordServer(socket, channel);
+        Thread acceptor = new Thread(server::accept, "FakeDiscord-Accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return server;
+    }
+
+    Path socket() {
+        return socket;
+    }
+
+    void readyDelay(long millis) {
+        readyDelayMillis = millis;
+    }
+
+    void ackDelay(long millis) {
+        ackDelayMillis = millis;
+    }
+
+    /**
+     * While stalled, connections are still accepted and frames read, but nothing is answered
+     * until the stall ends.
+     */
+    void stall(boolean stall) {
+        stalled = stall;
+    }
+
+    /**
+     * Answers the next {@code count} SET_ACTIVITY commands with an ERROR instead of an ack.
+     */
+    void rejectNext(int count) {
+        rejectNext.set(count);
+    }
+
+    void pingAll() {
+        for (Connection connection : connections) {
+            connection.send(OP_PING, "{\"ping\":" + System.nanoTime() + "}");
+        }
+    }
+
+    /**
+     * Sends every connection a CLOSE frame, as Discord does when it shuts down, then hangs up.
+     */
+    void closeAll(int code, String message) {
+        for (Connection connection : connections) {
+            connection.send(OP_CLOSE, "{\"code\":" + code + ",\"message\":\"" + message + "\"}");
+            connection.close();
+        }
+    }
+
+    /**
+     * Hangs up on every connection without a CLOSE frame, as when Discord crashes.
+     */
+    void dropAll() {
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    int connectionCount() {
+        return connections.size();
+    }
+
+    long accepted() {
+        return accepted.get();
+    }
+
+    long handshakes() {
+        return handshakes.get();
+    }
+
+    long acks() {
+        return acks.get();
+    }
+
+    long errors() {
+        return errors.get();
+    }
+
+    long pongs() {
+        return pongs.get();
+    }
+
+    /**
+     * SET_ACTIVITY commands received, whether answered with an ack or an error.
+     */
+    long activities() {
+        return activities.get();
+    }
+
+    /**
+     * The {@code state} of the last SET_ACTIVITY received.
+     */
+    String lastState() {
+        return lastState;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        dropAll();
+        server.close();
+        Files.deleteIfExists(socket);
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Connection connection = new Connection(server.accept());
+                accepted.incrementAndGet();
+                connections.add(connection);
+                Thread thread = new Thread(connection::serve, "FakeDiscord-Connection");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void pause(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    private final class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        private void serve() {
+            try {
+                boolean ready = false;
+                while (channel.isOpen()) {
+                    header.clear();
+                    readFully(header);
+                    int opcode = header.getInt(0);
+                    int length = header.getInt(4);
+                    if (length < 0 || length > MAX_FRAME_LENGTH) {
+                        throw new IOException("Bad frame length " + length);
+                    }
+                    ByteBuffer payload = ByteBuffer.allocate(length);
+                    readFully(payload);
+                    String json = new String(payload.array(), StandardCharsets.UTF_8);
+                    while (stalled && channel.isOpen()) {
+                        Thread.sleep(5L);
+                    }
+
+                    if (!ready) {
+                        ready = handshake(opcode, json);
+                        continue;
+                    }
+                    switch (opcode) {
+                        case OP_FRAME -> command(json);
+                        case OP_PING -> send(OP_PONG, json);
+                        case OP_PONG -> pongs.incrementAndGet();
+                        case OP_CLOSE -> close();
+                        default -> throw new IOException("Unexpected opcode " + opcode);
+                    }
+                }
+            } catch (IOException | InterruptedException | RuntimeException ignored) {
+            } finally {
+                close();
+            }
+        }
+
+        private boolean handshake(int opcode, String json) throws InterruptedException {
+            JsonObject handshake = opcode == OP_HANDSHAKE ? JsonParser.parseString(json).getAsJsonObject() : null;
+            if (handshake == null || !handshake.has("client_id") || handshake.get("client_id").getAsString().isBlank()
+                || !handshake.has("v") || handshake.get("v").getAsInt() != 1) {
+                send(OP_CLOSE, "{\"code\":4000,\"message\":\"Invalid Client ID\"}");
+                close();
+                return false;
+            }
+            pause(readyDelayMillis);
+            handshakes.incrementAndGet();
+            send(OP_FRAME, READY);
+            return true;
+        }
+
+        private void command(String json) throws InterruptedException {
+            JsonObject command = JsonParser.parseString(json).getAsJsonObject();
+            JsonElement nonce = command.get("nonce");
+            String cmd = command.has("cmd") ? command.get("cmd").getAsString() : "";
+            String quotedNonce = nonce == null || nonce.isJsonNull() ? "null" : "\"" + nonce.getAsString() + "\"";
+            JsonElement activity = command.has("args") ? command.getAsJsonObject("args").get("activity") : null;
+            if (cmd.equals("SET_ACTIVITY")) {
+                JsonElement state = activity != null && activity.isJsonObject() ? activity.getAsJsonObject().get("state") : null;
+                lastState = state == null ? null : state.getAsString();
+                activities.incrementAndGet();
+            }
+            pause(ackDelayMillis);
+
+            boolean reject = !cmd.equals("SET_ACTIVITY")
+                || rejectNext.getAndUpdate(count -> Math.max(0, count - 1)) > 0;
+            if (reject) {
+                errors.incrementAndGet();
+                send(OP_FRAME, "{\"cmd\":\"" + cmd + "\",\"data\":{\"code\":4000,\"message\":\"child \\\"activity\\\" fails\"},"
+                    + "\"evt\":\"ERROR\",\"nonce\":" + quotedNonce + "}");
+                return;
+            }
+            acks.incrementAndGet();
+            send(OP_FRAME, "{\"cmd\":\"SET_ACTIVITY\",\"data\":" + (activity == null ? "null" : activity.toString())
+                + ",\"evt\":null,\"nonce\":" + quotedNonce + "}");
+        }
+
+        private synchronized void send(int opcode, String json) {
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer frame = ByteBuffer.allocate(8 + bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+            frame.putInt(opcode).putInt(bytes.length).put(bytes).flip();
+            try {
+                while (frame.hasRemaining()) {
+                    channel.write(frame);
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void readFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException();
+                }
+            }
+        }
+
+        private void close() {
+            connections.remove(this);
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package dev.akgamerz_790.discordmc;
+
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+
+/**
+ * A loopback {@link DiscordIpcClient.Transport}: bytes written are read back in order. The backing
+ * buffer is rewound whenever it has been read empty, so a write-then-read cycle allocates nothing.
+ */
+final class InMemoryTransport implements DiscordIpcClient.Transport {
+    private ByteBuffer buffer;
+
+    InMemoryTransport(int capacity) {
+        buffer = ByteBuffer.allocate(capacity).flip();
+    }
+
+    /**
+     * Replaces the unread bytes with {@code bytes}.
+     */
+    void reset(byte[] bytes) {
+        buffer.clear();
+        buffer.put(bytes).flip();
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public boolean awaitReadable(long timeoutMillis) {
+        return buffer.hasRemaining();
+    }
+
+    @Override
+    public void read(ByteBuffer dst) throws EOFException {
+        if (buffer.remaining() < dst.remaining()) {
+            throw new EOFException("In-memory transport drained");
+        }
+        int length = dst.remaining();
+        dst.put(dst.position(), buffer, buffer.position(), length);
+        dst.position(dst.position() + length);
+        buffer.position(buffer.position() + length);
+    }
+
+    @Override
+    public void write(ByteBuffer src) {
+        int length = src.remaining();
+        if (!buffer.hasRemaining()) {
+            buffer.clear().limit(0);
+        }
+        if (buffer.capacity() - buffer.limit() < length) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.remaining() + length));
+            grown.put(buffer).flip();
+            buffer = grown;
+        }
+        int end = buffer.limit();
+        buffer.limit(end + length);
+        buffer.put(end, src, src.position(), length);
+        src.position(src.limit());
+    }
+
+    @Override
+    public void close() {
+        buffer.clear().flip();
+    }
+}
@@ -0,0 +1,65 @@
+package dev.akgamerz_790.discordmc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame writing and reading over an in-memory transport: a SET_ACTIVITY frame written and read
+ * back, and an inbound ack read down to its nonce the way {@code poll()} handles it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IpcFramingBenchmark {
+    private static final byte[] CMD_SET_ACTIVITY = "SET_ACTIVITY".getBytes(StandardCharsets.US_ASCII);
+    private static final String ACK = "{\"cmd\":\"SET_ACTIVITY\",\"data\":{\"state\":\"Playing on Hypixel\",\"details\":\"Team Red\","
+        + "\"timestamps\":{\"start\":1760000000000},\"assets\":{\"large_image\":\"overworld\",\"large_text\":\"Minecraft\"},"
+        + "\"name\":\"Minecraft\",\"application_id\":\"1472653254188859422\",\"type\":0},\"evt\":null,\"nonce\":\"4242\"}";
+
+    private final IpcFrameWriter writer = new IpcFrameWriter(64 * 1024);
+    private final IpcFrameReader reader = new IpcFrameReader(64 * 1024);
+    private final InMemoryTransport transport = new InMemoryTransport(4096);
+    private DiscordIpcClient.Activity activity;
+    private byte[] ackFrame;
+    private long nonce;
+
+    @Setup
+    public void setUp() throws IOException {
+        activity = BenchmarkData.activity("multiplayer");
+        writer.begin(DiscordIpcClient.OP_FRAME).putUtf8(ACK);
+        ByteBuffer frame = writer.finish();
+        ackFrame = new byte[frame.remaining()];
+        frame.get(ackFrame);
+    }
+
+    @Benchmark
+    public int writeThenReadActivity() throws IOException {
+        ActivityEncoder.encode(activity, ++nonce, writer.begin(DiscordIpcClient.OP_FRAME));
+        transport.write(writer.finish());
+        reader.read(transport);
+        return reader.opcode() + reader.payload().remaining();
+    }
+
+    @Benchmark
+    public long readAck() throws IOException {
+        transport.reset(ackFrame);
+        reader.read(transport);
+        return reader.commandEquals(CMD_SET_ACTIVITY) ? reader.nonceNumber() : -1L;
+    }
+}
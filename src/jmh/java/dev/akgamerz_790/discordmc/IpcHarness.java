@@ -0,0 +1,379 @@
+package dev.akgamerz_790.discordmc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs {@link DiscordIpcClient} and {@link DiscordConnection} against a {@link FakeDiscordServer}
+ * on a temporary Unix socket: update-to-ack latency percentiles, sustained update throughput with
+ * a window of unacknowledged updates, ping, rejection, and recovery from dropped, closed, stalled
+ * and restarted servers. Updates are then published through {@link PresenceDispatcher} as the
+ * presence service does, checking that bursts coalesce into the newest activity within the rate
+ * limit, that a rejected update is retried and that the last update is replayed after a
+ * reconnect. Prints a report and exits non-zero if any check failed. Linux and macOS.
+ */
+public final class IpcHarness {
+    private static final String CLIENT_ID = "1472653254188859422";
+    private static final int WARMUP_UPDATES = 500;
+    private static final int LATENCY_UPDATES = 5_000;
+    private static final int DELAYED_UPDATES = 200;
+    private static final long ACK_DELAY_MILLIS = 5L;
+    private static final long THROUGHPUT_MILLIS = 3_000L;
+    private static final int THROUGHPUT_WINDOW = 32;
+    private static final long REPLY_TIMEOUT_MILLIS = 2_000L;
+    // Covers the first backoff step (0.5-1 s) plus a probe.
+    private static final long RECONNECT_LIMIT_MILLIS = 5_000L;
+    // How long the server stays stalled or down; a stalled server holds each probe for its 3 s timeout.
+    private static final long OUTAGE_MILLIS = 4_000L;
+    // Attempts during an outage push backoff to 2-4 s and then 4-8 s.
+    private static final long OUTAGE_RECONNECT_LIMIT_MILLIS = 20_000L;
+    // A faster limiter than Discord's so the dispatcher checks finish in seconds; the logic is the same.
+    private static final int DISPATCH_RATE = 5;
+    private static final long DISPATCH_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long PUBLISH_INTERVAL_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final List<String> failures = new ArrayList<>();
+    private final Path socket;
+    private FakeDiscordServer server;
+
+    private IpcHarness(Path socket, FakeDiscordServer server) {
+        this.socket = socket;
+        this.server = server;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows")) {
+            System.out.println("The IPC harness needs Unix domain sockets; it does not run on Windows.");
+            return;
+        }
+
+        Path directory = Files.createTempDirectory("discordmc-ipc");
+        Path socket = directory.resolve("discord-ipc-0");
+        IpcHarness harness = new IpcHarness(socket, FakeDiscordServer.start(socket));
+        try {
+            harness.run();
+        } finally {
+            harness.server.close();
+            Files.deleteIfExists(directory);
+        }
+
+        if (harness.failures.isEmpty()) {
+            System.out.println("All checks passed.");
+            return;
+        }
+        System.out.println(harness.failures.size() + " check(s) failed:");
+        harness.failures.forEach(failure -> System.out.println("  " + failure));
+        System.exit(1);
+    }
+
+    private void run() throws Exception {
+        AtomicInteger rejected = new AtomicInteger();
+        DiscordIpcClient client = newClient(rejected);
+        try {
+            check("handshake", client.connect(CLIENT_ID), "client did not connect");
+            measureLatency(client);
+            measureThroughput(client);
+            checkPing(client);
+            checkRejection(client, rejected);
+            checkBadClientId();
+        } finally {
+            client.shutdown();
+        }
+        checkReconnects();
+        checkDispatcher();
+    }
+
+    private void measureLatency(DiscordIpcClient client) throws IOException {
+        for (int i = 0; i < WARMUP_UPDATES; i++) {
+            sendAndAwaitAck(client, i);
+        }
+        long[] latencies = new long[LATENCY_UPDATES];
+        for (int i = 0; i < LATENCY_UPDATES; i++) {
+            latencies[i] = sendAndAwaitAck(client, i);
+        }
+        report("latency (" + LATENCY_UPDATES + " updates, no ack delay)", latencies);
+
+        server.ackDelay(ACK_DELAY_MILLIS);
+        long[] delayed = new long[DELAYED_UPDATES];
+        for (int i = 0; i < DELAYED_UPDATES; i++) {
+            delayed[i] = sendAndAwaitAck(client, i);
+        }
+        server.ackDelay(0L);
+        report("latency (" + DELAYED_UPDATES + " updates, " + ACK_DELAY_MILLIS + " ms ack delay)", delayed);
+        Arrays.sort(delayed);
+        check("ack delay", delayed[0] >= TimeUnit.MILLISECONDS.toNanos(ACK_DELAY_MILLIS),
+            "an ack arrived faster than the server delay, so latency is not measured end to end");
+    }
+
+    /**
+     * Sends one update and polls until it is acknowledged, returning the elapsed nanoseconds.
+     */
+    private long sendAndAwaitAck(DiscordIpcClient client, int sequence) throws IOException {
+        long start = System.nanoTime();
+        client.setActivity(activity(sequence));
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(REPLY_TIMEOUT_MILLIS);
+        while (client.hasPendingRequests()) {
+            if (System.nanoTime() > deadline) {
+                throw new IOException("No ack within " + REPLY_TIMEOUT_MILLIS + " ms");
+            }
+            if (client.awaitReadable(10L)) {
+                client.poll();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void measureThroughput(DiscordIpcClient client) throws IOException {
+        long ackedBefore = client.requestStats().acked();
+        long droppedBefore = client.requestStats().dropped();
+        long sent = 0;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(THROUGHPUT_MILLIS);
+        while (System.nanoTime() < end) {
+            while (client.requestStats().pending() < THROUGHPUT_WINDOW) {
+                client.setActivity(activity((int) sent++));
+            }
+            if (client.awaitReadable(1L)) {
+                client.poll();
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(REPLY_TIMEOUT_MILLIS);
+        while (client.hasPendingRequests() && System.nanoTime() < deadline) {
+            if (client.awaitReadable(10L)) {
+                client.poll();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        PendingRequests.Stats stats = client.requestStats();
+        long acked = stats.acked() - ackedBefore;
+        System.out.printf(Locale.ROOT, "throughput (window %d): %d sent, %d acked in %.2f s = %.0f updates/s%n",
+            THROUGHPUT_WINDOW, sent, acked, seconds, acked / seconds);
+        check("throughput", acked == sent && stats.dropped() == droppedBefore,
+            (sent - acked) + " of " + sent + " updates were never acknowledged");
+    }
+
+    private void checkPing(DiscordIpcClient client) throws IOException {
+        long pongs = server.pongs();
+        server.pingAll();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(REPLY_TIMEOUT_MILLIS);
+        while (server.pongs() == pongs && System.nanoTime() < deadline) {
+            if (client.awaitReadable(10L)) {
+                client.poll();
+            }
+        }
+        check("ping", server.pongs() > pongs, "no PONG for a server PING");
+    }
+
+    private void checkRejection(DiscordIpcClient client, AtomicInteger rejected) throws IOException {
+        int before = rejected.get();
+        server.rejectNext(1);
+        sendAndAwaitAck(client, 0);
+        check("rejection", rejected.get() == before + 1 && client.isConnected(),
+            "an ERROR reply was not reported once, or it dropped the connection");
+    }
+
+    private void checkBadClientId() {
+        DiscordIpcClient client = newClient(new AtomicInteger());
+        try {
+            check("bad client id", !client.connect(" "), "a handshake the server closed was accepted");
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    private void checkReconnects() throws Exception {
+        AtomicInteger readies = new AtomicInteger();
+        DiscordIpcClient client = newClient(new AtomicInteger());
+        DiscordConnection connection = new DiscordConnection(client, readies::incrementAndGet);
+        try {
+            connection.start(CLIENT_ID);
+            check("connection ready", await(connection::isReady, RECONNECT_LIMIT_MILLIS), "never reached READY");
+
+            recover("reconnect after drop", connection, readies, RECONNECT_LIMIT_MILLIS, () -> server.dropAll());
+            recover("reconnect after CLOSE", connection, readies, RECONNECT_LIMIT_MILLIS, () -> server.closeAll(1000, "Shutting down"));
+            recover("reconnect after stall", connection, readies, OUTAGE_RECONNECT_LIMIT_MILLIS, () -> {
+                server.stall(true);
+                server.dropAll();
+                Thread.sleep(OUTAGE_MILLIS);
+                server.stall(false);
+            });
+            recover("reconnect after restart", connection, readies, OUTAGE_RECONNECT_LIMIT_MILLIS, () -> {
+                server.close();
+                Thread.sleep(OUTAGE_MILLIS);
+                server = FakeDiscordServer.start(socket);
+            });
+        } finally {
+            connection.shutdown();
+        }
+    }
+
+    private void checkDispatcher() throws Exception {
+        try (Pipeline pipeline = new Pipeline()) {
+            pipeline.start();
+            check("dispatcher ready", await(pipeline.connection::isReady, RECONNECT_LIMIT_MILLIS), "never reached READY");
+            measureDispatchedThroughput(pipeline);
+            checkDispatchedRejection(pipeline);
+            checkReplay(pipeline);
+        }
+    }
+
+    /**
+     * Publishes a new activity every {@link #PUBLISH_INTERVAL_NANOS}, far faster than the limiter
+     * lets through, and checks that Discord sees no more than the limit and ends on the newest.
+     */
+    private void measureDispatchedThroughput(Pipeline pipeline) throws InterruptedException {
+        long framesBefore = server.activities();
+        long coalescedBefore = pipeline.dispatcher.coalescedCount();
+        long droppedBefore = pipeline.client.requestStats().dropped();
+        int published = 0;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(THROUGHPUT_MILLIS);
+        while (System.nanoTime() < end) {
+            pipeline.dispatcher.publish(activity(published++));
+            LockSupport.parkNanos(PUBLISH_INTERVAL_NANOS);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long sentInWindow = server.activities() - framesBefore;
+        String newest = activity(published - 1).state();
+        boolean delivered = await(() -> newest.equals(server.lastState()), TimeUnit.NANOSECONDS.toMillis(DISPATCH_WINDOW_NANOS) + REPLY_TIMEOUT_MILLIS);
+        long coalesced = pipeline.dispatcher.coalescedCount() - coalescedBefore;
+        System.out.printf(Locale.ROOT, "dispatched (limit %d/s): %d published, %d coalesced, %d sent in %.2f s%n",
+            DISPATCH_RATE, published, coalesced, sentInWindow, seconds);
+
+        long allowed = DISPATCH_RATE + (long) Math.ceil(seconds * DISPATCH_RATE) + 1;
+        check("dispatch rate limit", sentInWindow <= allowed, sentInWindow + " updates sent, the limiter allows " + allowed);
+        check("dispatch coalescing", delivered && coalesced > 0, "the newest activity was not the last one Discord received");
+        check("dispatch drops", pipeline.client.requestStats().dropped() == droppedBefore, "an update sent by the dispatcher was never acknowledged");
+    }
+
+    private void checkDispatchedRejection(Pipeline pipeline) throws InterruptedException {
+        int rejectedBefore = pipeline.rejected.get();
+        long framesBefore = server.activities();
+        long acksBefore = server.acks();
+        server.rejectNext(1);
+        DiscordIpcClient.Activity activity = activity(-1);
+        pipeline.dispatcher.publish(activity);
+        boolean retried = await(() -> server.acks() > acksBefore && activity.state().equals(server.lastState()),
+            TimeUnit.NANOSECONDS.toMillis(DISPATCH_WINDOW_NANOS) * 2 + REPLY_TIMEOUT_MILLIS);
+        check("dispatch retry", retried && pipeline.rejected.get() == rejectedBefore + 1 && server.activities() - framesBefore == 2,
+            "a rejected update was not sent again exactly once");
+    }
+
+    private void checkReplay(Pipeline pipeline) throws InterruptedException {
+        DiscordIpcClient.Activity activity = activity(-2);
+        pipeline.dispatcher.publish(activity);
+        boolean sent = await(() -> activity.state().equals(server.lastState()), TimeUnit.NANOSECONDS.toMillis(DISPATCH_WINDOW_NANOS) + REPLY_TIMEOUT_MILLIS);
+        int readies = pipeline.readies.get();
+        long framesBefore = server.activities();
+        server.dropAll();
+        boolean replayed = await(() -> pipeline.readies.get() > readies && server.activities() > framesBefore
+            && activity.state().equals(server.lastState()), RECONNECT_LIMIT_MILLIS + REPLY_TIMEOUT_MILLIS);
+        check("dispatch replay", sent && replayed, "the last activity was not sent again after reconnecting");
+    }
+
+    private void recover(String name, DiscordConnection connection, AtomicInteger readies, long limitMillis, Fault fault) throws Exception {
+        int before = readies.get();
+        long start = System.nanoTime();
+        fault.inject();
+        boolean recovered = await(() -> readies.get() > before && connection.isReady(), limitMillis);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.printf(Locale.ROOT, "%s: %s in %d ms%n", name, recovered ? "READY" : "still " + connection.state(), millis);
+        check(name, recovered, "not READY again within " + limitMillis + " ms");
+    }
+
+    private DiscordIpcClient newClient(AtomicInteger rejected) {
+        return new DiscordIpcClient(null, activity -> rejected.incrementAndGet(),
+            () -> List.of(new DiscordIpcClient.Endpoint(socket.toString(), false)));
+    }
+
+    private void check(String name, boolean passed, String failure) {
+        if (!passed) {
+            failures.add(name + ": " + failure);
+        }
+    }
+
+    private static boolean await(BooleanSupplier condition, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(5L);
+        }
+        return true;
+    }
+
+    private static void report(String name, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf(Locale.ROOT, "%s: p50 %s, p90 %s, p99 %s, p99.9 %s, max %s%n", name,
+            micros(percentile(sorted, 0.50)), micros(percentile(sorted, 0.90)), micros(percentile(sorted, 0.99)),
+            micros(percentile(sorted, 0.999)), micros(sorted[sorted.length - 1]));
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f us", nanos / 1_000.0);
+    }
+
+    private static DiscordIpcClient.Activity activity(int sequence) {
+        return new DiscordIpcClient.Activity("Team Red", "Playing on Hypixel | Update " + sequence, "overworld", "Minecraft",
+            "hypixel_net", "Hypixel", "server:mc.hypixel.net", 1 + sequence % 100, 200, "mc.hypixel.net", 1_760_000_000L);
+    }
+
+    /**
+     * The client, connection and dispatcher wired together the way the presence service wires them.
+     */
+    private final class Pipeline implements AutoCloseable {
+        private final AtomicInteger rejected = new AtomicInteger();
+        private final AtomicInteger readies = new AtomicInteger();
+        private final DiscordIpcClient client;
+        private final DiscordConnection connection;
+        private final PresenceDispatcher dispatcher;
+
+        private Pipeline() {
+            client = new DiscordIpcClient(null, this::onRejected, () -> List.of(new DiscordIpcClient.Endpoint(socket.toString(), false)));
+            connection = new DiscordConnection(client, this::onReady);
+            dispatcher = new PresenceDispatcher(client, connection::isReady, connection::reportFailure, DISPATCH_RATE, DISPATCH_WINDOW_NANOS);
+        }
+
+        private void start() {
+            dispatcher.start();
+            connection.start(CLIENT_ID);
+        }
+
+        private void onRejected(DiscordIpcClient.Activity activity) {
+            rejected.incrementAndGet();
+            dispatcher.retry(activity);
+        }
+
+        private void onReady() {
+            readies.incrementAndGet();
+            dispatcher.replay();
+        }
+
+        @Override
+        public void close() {
+            dispatcher.stop();
+            connection.shutdown();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Fault {
+        void inject() throws Exception;
+    }
+}
@@ -0,0 +1,76 @@
+package dev.akgamerz_790.discordmc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One game-state read three ways, on a stand-in object: the compile-time call the direct reader
+ * makes, a {@link MethodHandleCache} handle as the reflective fallback uses it, and the per-call
+ * {@code getMethod} lookup both replaced. {@code missing} is a member absent under the mappings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReflectionBenchmark {
+    private final World world = new World();
+    private final Object target = world;
+
+    public static final class World {
+        private final Object scoreboard = new Object();
+
+        public Object getScoreboard() {
+            return scoreboard;
+        }
+    }
+
+    @Benchmark
+    public Object direct() {
+        return world.getScoreboard();
+    }
+
+    @Benchmark
+    public Object cachedHandle() throws Throwable {
+        MethodHandle method = MethodHandleCache.method(target.getClass(), "getScoreboard");
+        return method == null ? null : (Object) method.invokeExact(target);
+    }
+
+    @Benchmark
+    public Object cachedHandleMissing() {
+        return MethodHandleCache.method(target.getClass(), "method_1234");
+    }
+
+    @Benchmark
+    public Object lookupPerCall() {
+        return legacyInvokeNoArg(target, "getScoreboard");
+    }
+
+    @Benchmark
+    public Object lookupPerCallMissing() {
+        return legacyInvokeNoArg(target, "method_1234");
+    }
+
+    // The uncached lookup the reflective capture used to run on every read, kept as the baseline.
+    private static Object legacyInvokeNoArg(Object target, String methodName) {
+        try {
+            Method method = target.getClass().getMethod(methodName);
+            method.setAccessible(true);
+            return method.invoke(target);
+        } catch (Throwable ignored) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package dev.akgamerz_790.discordmc;
+
+import net.minecraft.scoreboard.ScoreboardDisplaySlot;
+import net.minecraft.text.Text;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every read a multiplayer capture makes through {@link ReflectiveGameStateReader}, over a
+ * stand-in object graph shaped like the client's: server label and player count, sidebar title,
+ * tab header and footer, online count, team variant and own team colour. {@code legacy} walks the
+ * same graph with the per-call {@code getMethod}/{@code getDeclaredField} helpers the capture used
+ * before the handle cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReflectiveCaptureBenchmark {
+    private final Client client = new Client();
+    private final Server server = new Server();
+
+    public enum Color {
+        RED, BLUE, GREEN, YELLOW, RESET
+    }
+
+    public static final class Server {
+        private final Text label = Text.literal("Hypixel Network [1.8-1.21]");
+        private final Text playerCountLabel = Text.literal("48213/200000");
+    }
+
+    public static final class Team {
+        private final Color color;
+        private final List<String> players;
+
+        Team(Color color, List<String> players) {
+            this.color = color;
+            this.players = players;
+        }
+
+        public Color getColor() {
+            return color;
+        }
+
+        public Collection<String> getPlayerList() {
+            return players;
+        }
+    }
+
+    public static final class Objective {
+        private final Text displayName = Text.literal("BED WARS");
+
+        public Text getDisplayName() {
+            return displayName;
+        }
+    }
+
+    public static final class Scoreboard {
+        private final Objective sidebar = new Objective();
+        private final List<Team> teams = List.of(
+            new Team(Color.RED, List.of("a", "b", "c", "d")),
+            new Team(Color.BLUE, List.of("e", "f", "g", "h")),
+            new Team(Color.GREEN, List.of("i", "j", "k", "l")),
+            new Team(Color.YELLOW, List.of("m", "n", "o", "p")),
+            new Team(Color.RESET, List.of("spectator"))
+        );
+
+        public Objective getObjectiveForSlot(ScoreboardDisplaySlot slot) {
+            return slot == ScoreboardDisplaySlot.SIDEBAR ? sidebar : null;
+        }
+
+        public Collection<Team> getTeams() {
+            return teams;
+        }
+    }
+
+    public static final class World {
+        private final Scoreboard scoreboard = new Scoreboard();
+
+        public Scoreboard getScoreboard() {
+            return scoreboard;
+        }
+    }
+
+    public static final class Player {
+        private final Team team;
+
+        Player(Team team) {
+            this.team = team;
+        }
+
+        public Team getScoreboardTeam() {
+            return team;
+        }
+    }
+
+    public static final class PlayerListHud {
+        private final Text header = Text.literal("You are playing on MC.HYPIXEL.NET");
+        private final Text footer = Text.literal("Ranks, Boosters & MORE! STORE.HYPIXEL.NET");
+    }
+
+    public static final class InGameHud {
+        private final PlayerListHud playerListHud = new PlayerListHud();
+
+        public PlayerListHud getPlayerListHud() {
+            return playerListHud;
+        }
+    }
+
+    public static final class NetworkHandler {
+        private final List<String> playerList = List.of("a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k", "l", "m", "n", "o", "p");
+
+        public Collection<String> getPlayerList() {
+            return playerList;
+        }
+    }
+
+    public static final class Client {
+        private final World world = new World();
+        private final Player player = new Player(world.scoreboard.teams.get(0));
+        private final InGameHud inGameHud = new InGameHud();
+        private final NetworkHandler networkHandler = new NetworkHandler();
+
+        public NetworkHandler getNetworkHandler() {
+            return networkHandler;
+        }
+    }
+
+    @Benchmark
+    public void cachedHandles(Blackhole blackhole) {
+        blackhole.consume(ReflectiveGameStateReader.textField(Server.class, server, "label"));
+        blackhole.consume(ReflectiveGameStateReader.textField(Server.class, server, "playerCountLabel"));
+        blackhole.consume(ReflectiveGameStateReader.sidebarTitleOf(client.world));
+        blackhole.consume(ReflectiveGameStateReader.playerListText(Client.class, client, "header"));
+        blackhole.consume(ReflectiveGameStateReader.playerListText(Client.class, client, "footer"));
+        blackhole.consume(ReflectiveGameStateReader.onlineTabCountOf(client));
+        blackhole.consume(ReflectiveGameStateReader.teamVariantOf(client.world));
+        blackhole.consume(ReflectiveGameStateReader.ownTeamColorOf(client.player));
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        blackhole.consume(legacyGetField(Server.class, server, "label"));
+        blackhole.consume(legacyGetField(Server.class, server, "playerCountLabel"));
+        blackhole.consume(legacySidebarTitle(client.world));
+        blackhole.consume(legacyPlayerListText(client, "header"));
+        blackhole.consume(legacyPlayerListText(client, "footer"));
+        blackhole.consume(legacyOnlineTabCount(client));
+        blackhole.consume(legacyTeamVariant(client.world));
+        blackhole.consume(legacyOwnTeamColor(client.player));
+    }
+
+    // The reads below mirror ReflectiveGameStateReader, with the helpers the capture used to call.
+
+    private static Object legacySidebarTitle(Object world) {
+        Object scoreboard = invokeNoArg(world, "getScoreboard");
+        if (scoreboard == null) {
+            return null;
+        }
+        Object sidebarSlot = getSidebarSlotConstant();
+        Object objective = null;
+        if (sidebarSlot != null) {
+            objective = invoke(scoreboard, "getObjectiveForSlot", new Class<?>[]{sidebarSlot.getClass()}, new Object[]{sidebarSlot});
+        }
+        if (objective == null) {
+            objective = invoke(scoreboard, "getObjectiveForSlot", new Class<?>[]{int.class}, new Object[]{1});
+        }
+        return invokeNoArg(objective, "getDisplayName");
+    }
+
+    private static Object legacyPlayerListText(Object client, String fieldName) {
+        Object hud = legacyGetField(Client.class, client, "inGameHud");
+        Object playerListHud = invokeNoArg(hud, "getPlayerListHud");
+        return playerListHud == null ? null : legacyGetField(playerListHud.getClass(), playerListHud, fieldName);
+    }
+
+    private static int legacyOnlineTabCount(Object client) {
+        Object handler = invokeNoArg(client, "getNetworkHandler");
+        if (handler == null) {
+            return -1;
+        }
+        Object playerList = invokeNoArg(handler, "getPlayerList");
+        if (playerList instanceof Collection<?> entries) {
+            return entries.size();
+        }
+        return -1;
+    }
+
+    private static String legacyTeamVariant(Object world) {
+        Object scoreboard = invokeNoArg(world, "getScoreboard");
+        Object teamsObj = invokeNoArg(scoreboard, "getTeams");
+        if (!(teamsObj instanceof Iterable<?> iterable)) {
+            return "";
+        }
+        StringBuilder variant = new StringBuilder();
+        int teams = 0;
+        for (Object team : iterable) {
+            if (team == null || legacyColorName(invokeNoArg(team, "getColor")).isEmpty()) {
+                continue;
+            }
+            Object players = invokeNoArg(team, "getPlayerList");
+            int size = players instanceof Collection<?> entries ? entries.size() : -1;
+            if (size > 0) {
+                if (teams++ > 0) {
+                    variant.append('v');
+                }
+                variant.append(size);
+            }
+        }
+        return teams < 2 ? "" : variant.toString();
+    }
+
+    private static String legacyOwnTeamColor(Object player) {
+        Object team = invokeNoArg(player, "getScoreboardTeam");
+        if (team == null) {
+            team = invokeNoArg(player, "getTeam");
+        }
+        return legacyColorName(invokeNoArg(team, "getColor"));
+    }
+
+    private static String legacyColorName(Object color) {
+        if (color == null) {
+            return "";
+        }
+        String name = color.toString().trim().toUpperCase(Locale.ROOT);
+        return name.isEmpty() || "RESET".equals(name) ? "" : name;
+    }
+
+    private static Object legacyGetField(Class<?> owner, Object target, String fieldName) {
+        if (target == null) {
+            return null;
+        }
+        try {
+            Field field = owner.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            return field.get(target);
+        } catch (Throwable ignored) {
+            return null;
+        }
+    }
+
+    private static Object getSidebarSlotConstant() {
+        try {
+            Class<?> slotClass = Class.forName("net.minecraft.scoreboard.ScoreboardDisplaySlot");
+            Field sidebarField = slotClass.getField("SIDEBAR");
+            return sidebarField.get(null);
+        } catch (Throwable ignored) {
+            return null;
+        }
+    }
+
+    private static Object invokeNoArg(Object target, String methodName) {
+        if (target == null) {
+            return null;
+        }
+        try {
+            Method method = target.getClass().getMethod(methodName);
+            method.setAccessible(true);
+            return method.invoke(target);
+        } catch (Throwable ignored) {
+            return null;
+        }
+    }
+
+    private static Object invoke(Object target, String methodName, Class<?>[] parameterTypes, Object[] args) {
+        if (target == null) {
+            return null;
+        }
+        try {
+            Method method = target.getClass().getMethod(methodName, parameterTypes);
+            method.setAccessible(true);
+            return method.invoke(target, args);
+        } catch (Throwable ignored) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package dev.akgamerz_790.discordmc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server identity resolution: host extraction, registry lookup against the bundled list and a
+ * synthetic 10k-entry one, where the domain trie is compared with the linear suffix scan it
+ * replaced, and MOTD keyword matching against the old regex pipeline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServerResolutionBenchmark {
+    private static final int LARGE_REGISTRY_SIZE = 10_000;
+
+    private ServerRegistry bundled;
+    private ServerRegistry large;
+    private List<String> largeSuffixes;
+    private List<ServerRegistry.Entry> largeEntries;
+    private String largeHost;
+
+    @State(Scope.Thread)
+    public static class Address {
+        @Param({"mc.hypixel.net", "Play.CubeCraft.net:25565", "[2001:db8::1]:25565", "survival.example.org"})
+        public String value;
+    }
+
+    @Setup
+    public void setUp() {
+        bundled = ServerRegistry.load(null);
+        List<ServerRegistry.Definition> definitions = BenchmarkData.definitions(LARGE_REGISTRY_SIZE);
+        large = ServerRegistry.of(definitions);
+        largeSuffixes = new ArrayList<>();
+        largeEntries = new ArrayList<>();
+        for (ServerRegistry.Definition definition : definitions) {
+            for (String host : definition.hosts) {
+                largeSuffixes.add(host);
+                largeEntries.add(new ServerRegistry.Entry(definition.name, definition.icon));
+            }
+        }
+        largeHost = "lobby.play.network" + (LARGE_REGISTRY_SIZE / 2) + ".org";
+    }
+
+    @Benchmark
+    public String extractHost(Address address) {
+        return ServerIdentityResolver.extractHost(address.value);
+    }
+
+    @Benchmark
+    public ServerRegistry.Entry resolveBundled(Address address) {
+        ServerRegistry.Entry known = bundled.find(ServerIdentityResolver.extractHost(address.value));
+        ServerRegistry.Entry fromMotd = bundled.matchMotd(BenchmarkData.HYPIXEL_MOTD);
+        return fromMotd != null ? fromMotd : known;
+    }
+
+    @Benchmark
+    public ServerRegistry.Entry largeRegistryTrie() {
+        return large.find(largeHost);
+    }
+
+    @Benchmark
+    public ServerRegistry.Entry largeRegistryLinearScan() {
+        ServerRegistry.Entry best = null;
+        int bestLength = -1;
+        for (int i = 0; i < largeSuffixes.size(); i++) {
+            String suffix = largeSuffixes.get(i);
+            boolean matches = largeHost.equals(suffix)
+                || (largeHost.endsWith(suffix) && largeHost.charAt(largeHost.length() - suffix.length() - 1) == '.');
+            if (matches && suffix.length() > bestLength) {
+                best = largeEntries.get(i);
+                bestLength = suffix.length();
+            }
+        }
+        return best;
+    }
+
+    @Benchmark
+    public ServerRegistry.Entry motdMatcher() {
+        return bundled.matchMotd(BenchmarkData.UNKNOWN_MOTD);
+    }
+
+    @Benchmark
+    public String motdRegexPipeline() {
+        return legacyFromMotd(BenchmarkData.UNKNOWN_MOTD);
+    }
+
+    // The regex and contains() chain MotdMatcher replaced, kept as the baseline.
+    private static String legacyFromMotd(String motd) {
+        if (motd == null || motd.isBlank()) {
+            return "";
+        }
+        String clean = motd
+            .replaceAll("\\u00A7.", "")
+            .replace('|', ' ')
+            .replaceAll("\\[[^\\]]+\\]", " ")
+            .replaceAll("\\s+", " ")
+            .trim();
+        if (clean.isEmpty()) {
+            return "";
+        }
+
+        String lower = clean.toLowerCase(Locale.ROOT);
+        if (lower.contains("hypixel")) {
+            return "Hypixel";
+        }
+        if (lower.contains("mineplex")) {
+            return "Mineplex";
+        }
+        if (lower.contains("cubecraft")) {
+            return "CubeCraft";
+        }
+        if (lower.contains("hive")) {
+            return "The Hive";
+        }
+        if (lower.contains("minemen")) {
+            return "Minemen Club";
+        }
+        return "";
+    }
+}
@@ -0,0 +1,65 @@
+package dev.akgamerz_790.discordmc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The multiplayer state line on Hypixel: the default {@link PresenceTemplate} when nothing
+ * changed since the last capture, when the player count changed, and the string concatenation
+ * the presence builder used before templates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateRenderingBenchmark {
+    private static final String[] COUNTS = {"48213/200000", "48214/200000"};
+
+    private final PresenceTemplate template = PresenceTemplate.Compiled.compile(new DiscordMCConfig.Templates()).multiplayerState();
+    private final PresenceTemplate.Renderer renderer = new PresenceTemplate.Renderer();
+    private final String server = "Hypixel";
+    private final String mode = "Bed Wars";
+    private final String variant = "4v4";
+    private final String map = "Lighthouse";
+    private int tick;
+
+    @Setup
+    public void setUp() {
+        renderer.set(PresenceTemplate.SERVER, server);
+        renderer.set(PresenceTemplate.HYPIXEL, server);
+        renderer.set(PresenceTemplate.PLAYERS, COUNTS[0]);
+        renderer.set(PresenceTemplate.MODE, mode);
+        renderer.set(PresenceTemplate.VARIANT, variant);
+        renderer.set(PresenceTemplate.MAP, map);
+    }
+
+    @Benchmark
+    public String templateUnchanged() {
+        return renderer.state(template);
+    }
+
+    @Benchmark
+    public String templateChanged() {
+        renderer.set(PresenceTemplate.PLAYERS, COUNTS[tick++ & 1]);
+        return renderer.state(template);
+    }
+
+    @Benchmark
+    public String concatenation() {
+        String state = "Playing on " + server;
+        state = state + " (" + COUNTS[tick++ & 1] + ")";
+        return state + " | Playing " + mode + " " + variant + " on " + map;
+    }
+}
@@ -0,0 +1,76 @@
+package dev.akgamerz_790.discordmc;
+
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The string helpers every capture runs: {@code clean} and {@code parseCountParts} from the
+ * presence builder, and {@link TextFlattener} against {@code getString()} plus a whitespace regex.
+ * Texts are built from literals only, so no game registries are needed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextCleaningBenchmark {
+    @Param({"BED WARS", "  \u00A7eBed   Wars\t 4v4  ", "48213 / 200000 players online"})
+    public String raw;
+
+    private final TextFlattener flattener = new TextFlattener();
+    private Text text;
+    private String previous;
+
+    @Setup
+    public void setUp() {
+        text = Text.literal("  ")
+            .append(Text.literal(raw).formatted(Formatting.GOLD))
+            .append(Text.literal("  \u00A77| ").formatted(Formatting.DARK_GRAY))
+            .append(Text.literal("www.hypixel.net "));
+        previous = flattener.flatten(text, null);
+    }
+
+    @Benchmark
+    public String clean() {
+        return DiscordPresenceService.PresenceSnapshot.clean(raw);
+    }
+
+    @Benchmark
+    public String cleanRegex() {
+        return raw.replaceAll("\\s+", " ").trim();
+    }
+
+    @Benchmark
+    public int[] parseCountParts() {
+        return DiscordPresenceService.PresenceSnapshot.parseCountParts(raw);
+    }
+
+    @Benchmark
+    public String flattenUnchanged() {
+        return flattener.flatten(text, previous);
+    }
+
+    @Benchmark
+    public String flattenChanged() {
+        return flattener.flatten(text, null);
+    }
+
+    @Benchmark
+    public String getStringRegex() {
+        return text.getString().replaceAll("\\u00A7.", "").replaceAll("\\s+", " ").trim();
+    }
+}
@@ -0,0 +1,96 @@
+package dev.akgamerz_790.discordmc;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams a {@code SET_ACTIVITY} command for a {@link DiscordIpcClient.Activity} straight into a
+ * frame. Keys and the {@code cmd}/{@code pid} prefix are pre-encoded; field order, omission rules
+ * and escaping follow what the previous Gson {@code JsonObject} tree produced.
+ */
+final class ActivityEncoder {
+    private static final byte[] PREFIX = ascii("{\"cmd\":\"SET_ACTIVITY\",\"args\":{\"pid\":" + ProcessHandle.current().pid() + ",\"activity\":{");
+    private static final byte[] STATE = ascii("\"state\":");
+    private static final byte[] DETAILS = ascii("\"details\":");
+    private static final byte[] TIMESTAMPS_START = ascii("\"timestamps\":{\"start\":");
+    private static final byte[] ASSETS = ascii("\"assets\":{");
+    private static final byte[] LARGE_IMAGE = ascii("\"large_image\":");
+    private static final byte[] LARGE_TEXT = ascii("\"large_text\":");
+    private static final byte[] SMALL_IMAGE = ascii("\"small_image\":");
+    private static final byte[] SMALL_TEXT = ascii("\"small_text\":");
+    private static final byte[] PARTY = ascii("\"party\":{");
+    private static final byte[] ID = ascii("\"id\":");
+    private static final byte[] SIZE = ascii("\"size\":");
+    private static final byte[] MAX = ascii("\"max\":");
+    private static final byte[] SECRETS_JOIN = ascii("\"secrets\":{\"join\":");
+    private static final byte[] INSTANCE = ascii("},\"instance\":true");
+    private static final byte[] NONCE = ascii("}},\"nonce\":");
+
+    private ActivityEncoder() {
+    }
+
+    static void encode(DiscordIpcClient.Activity activity, long nonce, IpcFrameWriter out) {
+        out.put(PREFIX);
+        boolean first = true;
+        first = field(out, first, STATE, activity.state());
+        first = field(out, first, DETAILS, activity.details());
+
+        if (activity.startTimestamp() > 0) {
+            first = separator(out, first);
+            out.put(TIMESTAMPS_START).putLong(activity.startTimestamp()).putByte('}');
+        }
+
+        if (isPresent(activity.largeImageKey()) || isPresent(activity.largeImageText())
+            || isPresent(activity.smallImageKey()) || isPresent(activity.smallImageText())) {
+            first = separator(out, first);
+            out.put(ASSETS);
+            boolean firstAsset = field(out, true, LARGE_IMAGE, activity.largeImageKey());
+            firstAsset = field(out, firstAsset, LARGE_TEXT, activity.largeImageText());
+            firstAsset = field(out, firstAsset, SMALL_IMAGE, activity.smallImageKey());
+            field(out, firstAsset, SMALL_TEXT, activity.smallImageText());
+            out.putByte('}');
+        }
+
+        boolean hasPartySize = activity.partySize() > 0 && activity.partyMax() >= activity.partySize();
+        if (isPresent(activity.partyId()) || hasPartySize) {
+            first = separator(out, first);
+            out.put(PARTY);
+            boolean firstParty = field(out, true, ID, activity.partyId());
+            if (hasPartySize) {
+                separator(out, firstParty);
+                out.put(SIZE).putLong(activity.partySize()).putByte(',').put(MAX).putLong(activity.partyMax());
+            }
+            out.putByte('}');
+        }
+
+        if (isPresent(activity.joinSecret())) {
+            separator(out, first);
+            out.put(SECRETS_JOIN).putJsonString(activity.joinSecret()).put(INSTANCE);
+        }
+
+        out.put(NONCE).putByte('"').putLong(nonce).putByte('"').putByte('}');
+    }
+
+    private static boolean field(IpcFrameWriter out, boolean first, byte[] key, String value) {
+        if (!isPresent(value)) {
+            return first;
+        }
+        separator(out, first);
+        out.put(key).putJsonString(value);
+        return false;
+    }
+
+    private static boolean separator(IpcFrameWriter out, boolean first) {
+        if (!first) {
+            out.putByte(',');
+        }
+        return false;
+    }
+
+    private static boolean isPresent(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,56 @@
+package dev.akgamerz_790.discordmc;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket sized to Discord's SET_ACTIVITY throttle of roughly five updates per twenty
+ * seconds. Updates sent above that rate are silently dropped by Discord, so the writer waits for
+ * a token instead. Only touched from the writer thread.
+ */
+final class ActivityRateLimiter {
+    static final int DEFAULT_CAPACITY = 5;
+    static final long DEFAULT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(20);
+
+    private final int capacity;
+    private final long nanosPerToken;
+    private int tokens;
+    private long lastRefillNanos;
+
+    ActivityRateLimiter(int capacity, long windowNanos, long nowNanos) {
+        this.capacity = capacity;
+        this.nanosPerToken = windowNanos / capacity;
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * Takes a token if one is available and returns 0, otherwise returns how many nanoseconds
+     * remain until the next token.
+     */
+    long tryAcquire(long nowNanos) {
+        refill(nowNanos);
+        if (tokens > 0) {
+            tokens--;
+            return 0L;
+        }
+        return Math.max(1L, lastRefillNanos + nanosPerToken - nowNanos);
+    }
+
+    private void refill(long nowNanos) {
+        if (tokens >= capacity) {
+            lastRefillNanos = nowNanos;
+            return;
+        }
+        long earned = (nowNanos - lastRefillNanos) / nanosPerToken;
+        if (earned <= 0) {
+            return;
+        }
+        if (tokens + earned >= capacity) {
+            tokens = capacity;
+            lastRefillNanos = nowNanos;
+        } else {
+            tokens += (int) earned;
+            lastRefillNanos += earned * nanosPerToken;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package dev.akgamerz_790.discordmc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Writes a file on a shared background thread once changes have stopped for a quiet period, but
+ * no later than a maximum delay after the first one, so a burst of changes costs one write. The
+ * content is taken from the supplier when the write runs and skipped if it matches what is on
+ * disk; otherwise it goes to a synced temp file that replaces the target, so a crash never
+ * leaves the file half written.
+ */
+final class DebouncedWriter {
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "DiscordMC-IO");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path target;
+    private final Supplier<String> content;
+    private final long quietNanos;
+    private final long maxDelayNanos;
+    private ScheduledFuture<?> pending;
+    private long firstDirtyNanos;
+    private long dueNanos;
+    // Bumped whenever the pending write is replaced, so a superseded task that already started does nothing.
+    private long generation;
+    // Writes hold their own lock so markDirty() never waits on disk.
+    private final Object writeLock = new Object();
+    private byte[] lastWritten;
+    private volatile long writes;
+
+    /**
+     * Writes {@code delayMillis} after the file was first marked dirty.
+     */
+    DebouncedWriter(Path target, Supplier<String> content, long delayMillis) {
+        this(target, content, delayMillis, delayMillis);
+    }
+
+    DebouncedWriter(Path target, Supplier<String> content, long quietMillis, long maxDelayMillis) {
+        this.target = target;
+        this.content = content;
+        this.quietNanos = TimeUnit.MILLISECONDS.toNanos(quietMillis);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(quietMillis, maxDelayMillis));
+    }
+
+    /**
+     * Schedules a write, or pushes a waiting one back to the end of the quiet period.
+     */
+    synchronized void markDirty() {
+        long now = System.nanoTime();
+        if (pending == null) {
+            firstDirtyNanos = now;
+        }
+        long due = Math.min(now + quietNanos, firstDirtyNanos + maxDelayNanos);
+        if (pending != null) {
+            if (due - dueNanos <= 0) {
+                return;
+            }
+            pending.cancel(false);
+        }
+        long scheduled = ++generation;
+        dueNanos = due;
+        pending = EXECUTOR.schedule(() -> writeScheduled(scheduled), due - now, TimeUnit.NANOSECONDS);
+    }
+
+    synchronized boolean isPending() {
+        return pending != null;
+    }
+
+    /**
+     * How many times the file has been replaced, so a reader can tell whether it raced a write.
+     */
+    long writeCount() {
+        return writes;
+    }
+
+    /**
+     * Performs a waiting write on the calling thread, for shutdown.
+     */
+    void flush() {
+        synchronized (this) {
+            if (pending == null) {
+                return;
+            }
+            pending.cancel(false);
+            pending = null;
+            generation++;
+        }
+        write();
+    }
+
+    private void writeScheduled(long scheduled) {
+        synchronized (this) {
+            if (scheduled != generation) {
+                return;
+            }
+            pending = null;
+        }
+        write();
+    }
+
+    private void write() {
+        synchronized (writeLock) {
+            writeLocked();
+        }
+    }
+
+    private void writeLocked() {
+        try {
+            byte[] bytes = content.get().getBytes(StandardCharsets.UTF_8);
+            if (lastWritten == null && Files.isRegularFile(target)) {
+                lastWritten = Files.readAllBytes(target);
+            }
+            if (Arrays.equals(bytes, lastWritten)) {
+                return;
+            }
+
+            Files.createDirectories(target.getParent());
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            syncDirectory(target.getParent());
+            lastWritten = bytes;
+            writes++;
+        } catch (IOException | RuntimeException e) {
+            DiscordMC.LOGGER.error("Failed to write {}.", target.getFileName(), e);
+        }
+    }
+
+    // Makes the rename itself durable. Directories cannot be opened this way on Windows, where the move is enough.
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package dev.akgamerz_790.discordmc;
+
+import dev.akgamerz_790.discordmc.mixin.PlayerListHudAccessor;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.hud.PlayerListHud;
+import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.client.network.ServerInfo;
+import net.minecraft.scoreboard.AbstractTeam;
+import net.minecraft.scoreboard.ScoreboardDisplaySlot;
+import net.minecraft.scoreboard.ScoreboardObjective;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+
+
+final class DirectGameStateReader implements GameStateReader {
+    static final DirectGameStateReader INSTANCE = new DirectGameStateReader();
+
+    private DirectGameStateReader() {
+    }
+
+    boolean isAvailable(MinecraftClient client) {
+        // Touching these forces the remapped members to link here rather than mid-capture.
+        if (ScoreboardDisplaySlot.SIDEBAR == null || Formatting.RESET.isColor()) {
+            return false;
+        }
+        return client == null || client.inGameHud == null || client.inGameHud.getPlayerListHud() instanceof PlayerListHudAccessor;
+    }
+
+    @Override
+    public Text serverLabel(ServerInfo info) {
+        return info == null ? null : info.label;
+    }
+
+    @Override
+    public Text playerCountLabel(ServerInfo info) {
+        return info == null ? null : info.playerCountLabel;
+    }
+
+    @Override
+    public Text sidebarTitle(MinecraftClient client) {
+        if (client.world == null) {
+            return null;
+        }
+        ScoreboardObjective objective = client.world.getScoreboard().getObjectiveForSlot(ScoreboardDisplaySlot.SIDEBAR);
+        return objective == null ? null : objective.getDisplayName();
+    }
+
+    @Override
+    public SidebarParser.Fields sidebarFields(MinecraftClient client) {
+        return client.world == null ? SidebarParser.Fields.EMPTY : SidebarParser.fields();
+    }
+
+    @Override
+    public Text tabHeader(MinecraftClient client) {
+        PlayerListHud hud = client.inGameHud == null ? null : client.inGameHud.getPlayerListHud();
+        return hud == null ? null : ((PlayerListHudAccessor) hud).getHeader();
+    }
+
+    @Override
+    public Text tabFooter(MinecraftClient client) {
+        PlayerListHud hud = client.inGameHud == null ? null : client.inGameHud.getPlayerListHud();
+        return hud == null ? null : ((PlayerListHudAccessor) hud).getFooter();
+    }
+
+    @Override
+    public int onlineTabCount(MinecraftClient client) {
+        ClientPlayNetworkHandler handler = client.getNetworkHandler();
+        return handler == null ? -1 : handler.getPlayerList().size();
+    }
+
+    @Override
+    public String teamVariant(MinecraftClient client) {
+        return client.world == null ? "" : TeamSizeTracker.variant(client.world.getScoreboard());
+    }
+
+    @Override
+    public String ownTeamColor(MinecraftClient client) {
+        if (client.player == null) {
+            return "";
+        }
+        AbstractTeam team = client.player.getScoreboardTeam();
+        if (team == null) {
+            return "";
+        }
+        Formatting color = team.getColor();
+        return color == null || !color.isColor() ? "" : color.name();
+    }
+}
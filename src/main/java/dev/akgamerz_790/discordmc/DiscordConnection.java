@@ -0,0 +1,207 @@
+package dev.akgamerz_790.discordmc;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owns the lifecycle of the Discord IPC connection on a background thread. Connecting, polling,
+ * closing and reconnecting all run on one executor, so the client thread never blocks on the pipe.
+ * Failures move the connection to {@link State#BACKOFF} and it retries with jittered exponential
+ * backoff until {@link #stop()} is called.
+ */
+final class DiscordConnection {
+    // How long one read wait may hold the executor before queued tasks get a turn.
+    private static final long READ_WAIT_MILLIS = 250L;
+    private static final long BACKOFF_BASE_MILLIS = 1_000L;
+    private static final long BACKOFF_MAX_MILLIS = 60_000L;
+
+    enum State {
+        DISCONNECTED,
+        CONNECTING,
+        READY,
+        BACKOFF
+    }
+
+    private final DiscordIpcClient ipcClient;
+    private final Runnable onReady;
+    private final ScheduledThreadPoolExecutor executor = newExecutor();
+
+    private volatile State state = State.DISCONNECTED;
+    // Bumped on every start/stop so tasks queued for an older session drop out.
+    private volatile long generation;
+    private String applicationId;
+    private int attempts;
+    private ScheduledFuture<?> retryTask;
+
+    DiscordConnection(DiscordIpcClient ipcClient, Runnable onReady) {
+        this.ipcClient = ipcClient;
+        this.onReady = onReady;
+    }
+
+    // A cancelled retry leaves the queue at once, and a pending one is dropped by shutdown(), so
+    // shutting down only waits for the stop task instead of the next backoff.
+    private static ScheduledThreadPoolExecutor newExecutor() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "DiscordMC-RPC");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return executor;
+    }
+
+    State state() {
+        return state;
+    }
+
+    boolean isReady() {
+        return state == State.READY;
+    }
+
+    /**
+     * Connects with the given application id. A session still open, such as one a restart's stop
+     * task skipped because this start superseded it, is cleared and closed first.
+     */
+    void start(String applicationId) {
+        long session = ++generation;
+        executor.execute(() -> {
+            if (session != generation) {
+                return;
+            }
+            cancelTasks();
+            closeSession();
+            this.applicationId = applicationId;
+            attempts = 0;
+            connect(session);
+        });
+    }
+
+    void stop() {
+        long session = ++generation;
+        executor.execute(() -> {
+            if (session != generation) {
+                return;
+            }
+            cancelTasks();
+            closeSession();
+        });
+    }
+
+    /**
+     * Stops the connection and waits briefly for the activity to be cleared, for use while the
+     * client is shutting down.
+     */
+    void shutdown() {
+        stop();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ipcClient.shutdown();
+    }
+
+    /**
+     * Called from any thread when a read or write on the current connection failed.
+     */
+    void reportFailure(IOException failure) {
+        long session = generation;
+        enqueue(() -> {
+            if (session != generation || state != State.READY) {
+                return;
+            }
+            DiscordMC.LOGGER.warn("Discord IPC disconnected: {}", failure.getMessage());
+            PresenceMetrics.DISCONNECTS.increment();
+            cancelTasks();
+            ipcClient.close();
+            scheduleRetry(session);
+        });
+    }
+
+    private void connect(long session) {
+        retryTask = null;
+        state = State.CONNECTING;
+        if (!ipcClient.connect(applicationId)) {
+            PresenceMetrics.CONNECT_FAILURES.increment();
+            if (attempts == 0) {
+                DiscordMC.LOGGER.warn("Could not connect to Discord IPC. Make sure Discord desktop app is running.");
+            }
+            scheduleRetry(session);
+            return;
+        }
+
+        PresenceMetrics.CONNECTS.increment();
+        if (attempts > 0) {
+            PresenceMetrics.RECONNECTS.increment();
+            DiscordMC.LOGGER.info("Reconnected to Discord IPC after {} attempt(s).", attempts);
+        }
+        attempts = 0;
+        state = State.READY;
+        executor.execute(() -> read(session));
+        onReady.run();
+    }
+
+    /**
+     * Waits for input and handles it as soon as it arrives, so pings and acks are answered and
+     * timed promptly, then re-queues itself behind any other pending task.
+     */
+    private void read(long session) {
+        if (session != generation || state != State.READY) {
+            return;
+        }
+        try {
+            if (ipcClient.awaitReadable(READ_WAIT_MILLIS) || ipcClient.hasPendingRequests()) {
+                ipcClient.poll();
+            }
+        } catch (IOException e) {
+            reportFailure(e);
+            return;
+        }
+        if (session == generation) {
+            enqueue(() -> read(session));
+        }
+    }
+
+    // Tasks raced with shutdown() are dropped; the connection is being torn down anyway.
+    private void enqueue(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ignored) {
+        }
+    }
+
+    private void scheduleRetry(long session) {
+        state = State.BACKOFF;
+        long ceiling = Math.min(BACKOFF_MAX_MILLIS, BACKOFF_BASE_MILLIS << Math.min(attempts, 16));
+        long delay = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+        attempts++;
+        retryTask = executor.schedule(() -> {
+            if (session == generation) {
+                connect(session);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    // Clears the activity while the old session can still send, so it does not linger under the next application id.
+    private void closeSession() {
+        boolean wasConnected = state == State.READY;
+        state = State.DISCONNECTED;
+        if (wasConnected) {
+            ipcClient.clearActivity();
+        }
+        ipcClient.close();
+    }
+
+    private void cancelTasks() {
+        if (retryTask != null) {
+            retryTask.cancel(false);
+            retryTask = null;
+        }
+    }
+}
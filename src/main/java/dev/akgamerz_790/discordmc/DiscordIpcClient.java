@@ -1,107 +1,176 @@
 package dev.akgamerz_790.discordmc;
 
+import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
 import java.io.Closeable;
-import java.io.EOFException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
-import java.util.UUID;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public final class DiscordIpcClient implements Closeable {
     private static final int OP_HANDSHAKE = 0;
-    private static final int OP_FRAME = 1;
+    static final int OP_FRAME = 1;
     private static final int OP_CLOSE = 2;
-    private static final int OP_PING = 3;
+    static final int OP_PING = 3;
     private static final int OP_PONG = 4;
 
-    private RandomAccessFile pipe;
-    private volatile boolean connected;
+    private static final int ENDPOINT_COUNT = 10;
+    private static final int MAX_FRAME_LENGTH = 1_048_576;
+    private static final long PROBE_TIMEOUT_MILLIS = 3_000L;
+    private static final long ENDPOINT_WRITE_DELAY_MILLIS = 1_000L;
+    private static final Gson GSON = new Gson();
 
-    public synchronized boolean connect(String clientId) {
-        closeQuietly();
+    private static final byte[] EVT_ERROR = "ERROR".getBytes(StandardCharsets.US_ASCII);
 
-        for (int i = 0; i < 10; i++) {
-            String path = "\\\\?\\pipe\\discord-ipc-" + i;
-            try {
-                pipe = new RandomAccessFile(path, "rw");
-                JsonObject handshake = new JsonObject();
-                handshake.addProperty("v", 1);
-                handshake.addProperty("client_id", clientId);
-                writeFrame(OP_HANDSHAKE, handshake.toString());
-
-                Frame frame = readFrame();
-                if (frame.opcode == OP_FRAME || frame.opcode == OP_PING) {
-                    connected = true;
-                    return true;
-                }
-            } catch (IOException ignored) {
-                closeQuietly();
-            }
-        }
-        return false;
-    }
+    private final IpcFrameWriter frameWriter = new IpcFrameWriter(MAX_FRAME_LENGTH);
+    private final IpcFrameReader frameReader = new IpcFrameReader(MAX_FRAME_LENGTH);
+    private final EndpointProber prober = new EndpointProber();
+    private final PendingRequests pending = new PendingRequests();
+    private final Path lastEndpointFile;
+    private final DebouncedWriter lastEndpointWriter;
+    private final Consumer<Activity> onRejected;
+    private final Supplier<List<Endpoint>> endpoints;
+    // Read by the writer's IO thread.
+    private volatile Endpoint lastEndpoint;
+    private boolean lastEndpointLoaded;
+    private volatile Transport transport;
+    private volatile boolean connected;
+    // Bumped by every close, so a connect whose probes outlived it does not install its transport.
+    private volatile long generation;
+    private boolean shutDown;
 
-    public synchronized boolean isConnected() {
-        return connected && pipe != null;
+    /**
+     * @param lastEndpointFile where the endpoint of the last successful handshake is remembered,
+     *                         or {@code null} to always probe every endpoint
+     * @param onRejected       called from {@link #poll()} with an activity Discord answered with an error
+     */
+    public DiscordIpcClient(Path lastEndpointFile, Consumer<Activity> onRejected) {
+        this(lastEndpointFile, onRejected, DiscordIpcClient::endpoints);
     }
 
-    public synchronized void setActivity(Activity activity) throws IOException {
-        ensureConnected();
-
-        JsonObject root = new JsonObject();
-        root.addProperty("cmd", "SET_ACTIVITY");
+    /**
+     * Connects only to the given endpoints instead of the platform's Discord pipes and sockets.
+     */
+    DiscordIpcClient(Path lastEndpointFile, Consumer<Activity> onRejected, Supplier<List<Endpoint>> endpoints) {
+        this.lastEndpointFile = lastEndpointFile;
+        this.lastEndpointWriter = lastEndpointFile == null ? null
+            : new DebouncedWriter(lastEndpointFile, () -> GSON.toJson(lastEndpoint), ENDPOINT_WRITE_DELAY_MILLIS);
+        this.onRejected = onRejected;
+        this.endpoints = endpoints;
+    }
 
-        JsonObject args = new JsonObject();
-        args.addProperty("pid", ProcessHandle.current().pid());
+    /**
+     * Handshakes with the endpoint that worked last time first, then with every other endpoint
+     * in parallel, keeping whichever answers first. The probes run without the client lock, so
+     * {@link #close()} and {@link #shutdown()} do not wait for them; a connection closed meanwhile
+     * throws the winner away.
+     */
+    public boolean connect(String clientId) {
+        byte[] handshakeFrame;
+        long attempt;
+        synchronized (this) {
+            close();
+            if (shutDown) {
+                return false;
+            }
+            attempt = generation;
 
-        JsonObject payload = new JsonObject();
-        addIfPresent(payload, "state", activity.state());
-        addIfPresent(payload, "details", activity.details());
+            JsonObject handshake = new JsonObject();
+            handshake.addProperty("v", 1);
+            handshake.addProperty("client_id", clientId);
+            try {
+                ByteBuffer frame = frameWriter.begin(OP_HANDSHAKE).putUtf8(handshake.toString()).finish();
+                handshakeFrame = new byte[frame.remaining()];
+                frame.get(handshakeFrame);
+            } catch (IOException e) {
+                return false;
+            }
+        }
 
-        JsonObject timestamps = new JsonObject();
-        if (activity.startTimestamp() > 0) {
-            timestamps.addProperty("start", activity.startTimestamp());
+        List<Endpoint> candidates = new ArrayList<>(endpoints.get());
+        Endpoint remembered = lastEndpoint();
+        EndpointProber.Probe probe = null;
+        if (remembered != null && candidates.remove(remembered)) {
+            probe = prober.probe(List.of(remembered), handshakeFrame, PROBE_TIMEOUT_MILLIS);
         }
-        if (!timestamps.entrySet().isEmpty()) {
-            payload.add("timestamps", timestamps);
+        if (probe == null && generation == attempt) {
+            probe = prober.probe(candidates, handshakeFrame, PROBE_TIMEOUT_MILLIS);
         }
-
-        JsonObject assets = new JsonObject();
-        addIfPresent(assets, "large_image", activity.largeImageKey());
-        addIfPresent(assets, "large_text", activity.largeImageText());
-        addIfPresent(assets, "small_image", activity.smallImageKey());
-        addIfPresent(assets, "small_text", activity.smallImageText());
-        if (!assets.entrySet().isEmpty()) {
-            payload.add("assets", assets);
+        if (probe == null) {
+            return false;
         }
 
-        JsonObject party = new JsonObject();
-        addIfPresent(party, "id", activity.partyId());
-        if (activity.partySize() > 0 && activity.partyMax() >= activity.partySize()) {
-            party.addProperty("size", activity.partySize());
-            party.addProperty("max", activity.partyMax());
+        synchronized (this) {
+            if (generation != attempt) {
+                try {
+                    probe.transport().close();
+                } catch (IOException ignored) {
+                }
+                return false;
+            }
+            transport = probe.transport();
+            connected = true;
         }
-        if (!party.entrySet().isEmpty()) {
-            payload.add("party", party);
+        if (!probe.endpoint().equals(remembered)) {
+            rememberEndpoint(probe.endpoint());
         }
+        return true;
+    }
+
+    public boolean isConnected() {
+        return connected && transport != null;
+    }
+
+    public synchronized void setActivity(Activity activity) throws IOException {
+        setActivity(activity, () -> true);
+    }
 
-        JsonObject secrets = new JsonObject();
-        addIfPresent(secrets, "join", activity.joinSecret());
-        if (!secrets.entrySet().isEmpty()) {
-            payload.add("secrets", secrets);
-            payload.addProperty("instance", true);
+    /**
+     * Sends the activity only if {@code current} still holds once this client is locked, so a
+     * sender that was stopped while it waited for the lock sends nothing after the activity has
+     * been cleared. Returns whether it was sent.
+     */
+    public synchronized boolean setActivity(Activity activity, BooleanSupplier current) throws IOException {
+        if (!current.getAsBoolean()) {
+            return false;
         }
+        ensureConnected();
+
+        long start = System.nanoTime();
+        ActivityEncoder.encode(activity, pending.add(activity, start), frameWriter.begin(OP_FRAME));
+        ByteBuffer frame = frameWriter.finish();
+        long encoded = System.nanoTime();
+        PresenceMetrics.ENCODE.record(encoded - start);
+        send(frame);
+        PresenceMetrics.WRITE.record(System.nanoTime() - encoded);
+        return true;
+    }
+
+    private void send(ByteBuffer frame) throws IOException {
+        PresenceMetrics.FRAMES_SENT.increment();
+        PresenceMetrics.BYTES_SENT.add(frame.remaining());
+        transport.write(frame);
+    }
 
-        args.add("activity", payload);
-        root.add("args", args);
-        root.addProperty("nonce", UUID.randomUUID().toString());
+    public boolean hasPendingRequests() {
+        return pending.size() > 0;
+    }
 
-        writeFrame(OP_FRAME, root.toString());
+    /**
+     * Reads the request counters without the client lock, so it never waits for a write or poll.
+     */
+    public PendingRequests.Stats requestStats() {
+        return pending.stats();
     }
 
     public synchronized void clearActivity() {
@@ -119,84 +188,161 @@ public final class DiscordIpcClient implements Closeable {
             return;
         }
 
-        while (pipe.length() - pipe.getFilePointer() >= 8) {
-            Frame frame = readFrame();
-            if (frame.opcode == OP_PING) {
-                writeFrame(OP_PONG, frame.payload);
-            } else if (frame.opcode == OP_CLOSE) {
+        long start = System.nanoTime();
+        while (transport.available() >= IpcFrameWriter.HEADER_LENGTH) {
+            frameReader.read(transport);
+            long now = System.nanoTime();
+            int opcode = frameReader.opcode();
+            PresenceMetrics.FRAMES_RECEIVED.increment();
+            PresenceMetrics.BYTES_RECEIVED.add(IpcFrameWriter.HEADER_LENGTH + frameReader.payload().remaining());
+            if (opcode == OP_PING) {
+                send(frameWriter.begin(OP_PONG).put(frameReader.payload()).finish());
+            } else if (opcode == OP_CLOSE) {
                 throw new IOException("Discord IPC closed by peer");
-            } else if (frame.opcode == OP_FRAME && frame.payload != null && !frame.payload.isBlank()) {
-                JsonObject obj = JsonParser.parseString(frame.payload).getAsJsonObject();
-                if (obj.has("evt") && "ERROR".equals(obj.get("evt").getAsString())) {
-                    throw new IOException("Discord IPC error: " + frame.payload);
-                }
+            } else if (opcode == OP_FRAME) {
+                handleResponse(now);
             }
         }
+        long end = System.nanoTime();
+        pending.expire(end);
+        PresenceMetrics.POLL.record(end - start);
+    }
+
+    /**
+     * Blocks for up to {@code timeoutMillis} until the connection has input for {@link #poll()}.
+     * Only the connection thread may call this; it does not hold the client lock while waiting.
+     */
+    public boolean awaitReadable(long timeoutMillis) throws IOException {
+        Transport current = transport;
+        if (!connected || current == null) {
+            return false;
+        }
+        return current.awaitReadable(timeoutMillis);
     }
 
     @Override
     public synchronized void close() {
         connected = false;
+        generation++;
         closeQuietly();
     }
 
+    private void handleResponse(long nowNanos) throws IOException {
+        // Only responses to our own nonces are looked at; everything else is skipped unparsed.
+        long nonce = frameReader.nonceNumber();
+        if (!frameReader.eventEquals(EVT_ERROR)) {
+            pending.ack(nonce, nowNanos);
+            return;
+        }
+
+        String error = describeError(frameReader.payloadString());
+        if (nonce < 0) {
+            throw new IOException("Discord IPC error: " + error);
+        }
+        Activity rejected = pending.reject(nonce);
+        DiscordMC.LOGGER.warn("Discord rejected presence update {}: {}", nonce, error);
+        if (rejected != null) {
+            onRejected.accept(rejected);
+        }
+    }
+
+    /**
+     * Closes the connection, stops the probe threads and writes a remembered endpoint that is
+     * still waiting. The client cannot connect again.
+     */
+    public synchronized void shutdown() {
+        shutDown = true;
+        close();
+        prober.shutdown();
+        if (lastEndpointWriter != null) {
+            lastEndpointWriter.flush();
+        }
+    }
+
+    private Endpoint lastEndpoint() {
+        if (!lastEndpointLoaded && lastEndpointFile != null) {
+            lastEndpointLoaded = true;
+            if (Files.exists(lastEndpointFile)) {
+                try {
+                    lastEndpoint = GSON.fromJson(Files.readString(lastEndpointFile, StandardCharsets.UTF_8), Endpoint.class);
+                } catch (IOException | RuntimeException e) {
+                    DiscordMC.LOGGER.debug("Ignoring unreadable Discord IPC endpoint cache.", e);
+                }
+            }
+        }
+        return lastEndpoint;
+    }
+
+    private void rememberEndpoint(Endpoint endpoint) {
+        lastEndpoint = endpoint;
+        if (lastEndpointWriter != null) {
+            lastEndpointWriter.markDirty();
+        }
+    }
+
     private void closeQuietly() {
-        if (pipe != null) {
+        pending.reset();
+        if (transport != null) {
             try {
-                pipe.close();
+                transport.close();
             } catch (IOException ignored) {
             } finally {
-                pipe = null;
+                transport = null;
             }
         }
     }
 
+    static List<Endpoint> endpoints() {
+        List<Endpoint> endpoints = new ArrayList<>();
+        String os = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+        if (os.startsWith("windows")) {
+            for (int i = 0; i < ENDPOINT_COUNT; i++) {
+                endpoints.add(new Endpoint("\\\\?\\pipe\\discord-ipc-" + i, true));
+            }
+            return endpoints;
+        }
+
+        for (Path socket : UnixSocketTransport.candidates(ENDPOINT_COUNT)) {
+            endpoints.add(new Endpoint(socket.toString(), false));
+        }
+        return endpoints;
+    }
+
     private void ensureConnected() throws IOException {
         if (!isConnected()) {
             throw new IOException("Discord IPC is not connected");
         }
     }
 
-    private void addIfPresent(JsonObject obj, String key, String value) {
-        if (value != null && !value.isBlank()) {
-            obj.addProperty(key, value);
+    private static String describeError(String payload) {
+        try {
+            JsonObject data = JsonParser.parseString(payload).getAsJsonObject().getAsJsonObject("data");
+            if (data != null && data.has("message")) {
+                return data.get("message").getAsString() + (data.has("code") ? " (" + data.get("code").getAsString() + ")" : "");
+            }
+        } catch (RuntimeException ignored) {
         }
+        return payload;
     }
 
-    private void writeFrame(int opcode, String payload) throws IOException {
-        byte[] payloadBytes = payload == null ? new byte[0] : payload.getBytes(StandardCharsets.UTF_8);
-        ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
-        header.putInt(opcode);
-        header.putInt(payloadBytes.length);
-        pipe.write(header.array());
-        pipe.write(payloadBytes);
-    }
+    /**
+     * Byte pipe underneath the IPC framing. Implementations fill or drain the whole buffer
+     * they are given, and report how many bytes can be read without blocking.
+     */
+    interface Transport extends Closeable {
+        int available() throws IOException;
 
-    private Frame readFrame() throws IOException {
-        byte[] headerBytes = new byte[8];
-        int read = pipe.read(headerBytes);
-        if (read < 0) {
-            throw new EOFException("Discord IPC stream ended");
-        }
-        if (read < 8) {
-            throw new EOFException("Discord IPC short header");
-        }
+        boolean awaitReadable(long timeoutMillis) throws IOException;
 
-        ByteBuffer header = ByteBuffer.wrap(headerBytes).order(ByteOrder.LITTLE_ENDIAN);
-        int opcode = header.getInt();
-        int length = header.getInt();
-        if (length < 0 || length > 1_048_576) {
-            throw new IOException("Invalid Discord IPC frame length: " + length);
-        }
+        void read(ByteBuffer dst) throws IOException;
 
-        byte[] payload = new byte[length];
-        if (length > 0) {
-            pipe.readFully(payload);
-        }
-        return new Frame(opcode, new String(payload, StandardCharsets.UTF_8));
+        void write(ByteBuffer src) throws IOException;
     }
 
-    private record Frame(int opcode, String payload) {
+    record Endpoint(String location, boolean namedPipe) {
+        Transport open() throws IOException {
+            return namedPipe ? NamedPipeTransport.open(location) : UnixSocketTransport.open(Path.of(location));
+        }
     }
 
     public record Activity(
@@ -3,6 +3,8 @@ package dev.akgamerz_790.discordmc;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientWorldEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,9 +19,20 @@ public final class DiscordMC implements ClientModInitializer {
         DiscordMCConfig.load();
         DiscordMCCommand.register(presenceService);
 
-        ClientLifecycleEvents.CLIENT_STARTED.register(client -> presenceService.start());
-        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> presenceService.stop());
+        ClientLifecycleEvents.CLIENT_STARTED.register(client -> {
+            DiscordMCConfig.addListener(presenceService::onConfigChanged);
+            DiscordMCConfig.watch(client);
+            presenceService.start();
+        });
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> {
+            DiscordMCConfig.stopWatching();
+            presenceService.shutdown();
+            DiscordMCConfig.flush();
+        });
         ClientTickEvents.END_CLIENT_TICK.register(presenceService::onTick);
+        ClientPlayConnectionEvents.JOIN.register((handler, sender, client) -> presenceService.onJoin(client));
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> presenceService.onDisconnect(client));
+        ClientWorldEvents.AFTER_CLIENT_WORLD_CHANGE.register((client, world) -> presenceService.onWorldChange(client));
 
         LOGGER.info("DiscordMC initialized.");
     }
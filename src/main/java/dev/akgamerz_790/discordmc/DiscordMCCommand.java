@@ -8,6 +8,8 @@ import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallba
 import net.fabricmc.fabric.api.client.command.v2.FabricClientCommandSource;
 import net.minecraft.text.Text;
 
+import java.util.function.Consumer;
+
 import static net.fabricmc.fabric.api.client.command.v2.ClientCommandManager.argument;
 import static net.fabricmc.fabric.api.client.command.v2.ClientCommandManager.literal;
 
@@ -73,9 +75,9 @@ public final class DiscordMCCommand {
         root.then(intervalNode("int"));
         root.then(intervalNode("rate"));
 
-        root.then(appIdNode("appId", service));
-        root.then(appIdNode("appid", service));
-        root.then(appIdNode("clientid", service));
+        root.then(appIdNode("appId"));
+        root.then(appIdNode("appid"));
+        root.then(appIdNode("clientid"));
 
         root.then(imagesNode("images"));
         root.then(imagesNode("image"));
@@ -85,9 +87,12 @@ public final class DiscordMCCommand {
         root.then(reloadNode("r", service));
         root.then(reloadNode("reloadcfg", service));
 
-        root.then(statusNode("status"));
-        root.then(statusNode("stats"));
-        root.then(statusNode("s"));
+        root.then(statusNode("status", service));
+        root.then(statusNode("stats", service));
+        root.then(statusNode("s", service));
+
+        root.then(metricsNode("metrics", service));
+        root.then(metricsNode("perf", service));
 
         return root;
     }
@@ -110,8 +115,8 @@ public final class DiscordMCCommand {
         return literal(name)
             .then(argument("text", StringArgumentType.greedyString())
                 .executes(ctx -> {
-                    DiscordMCConfig.get().privateServerState = StringArgumentType.getString(ctx, "text");
-                    DiscordMCConfig.save();
+                    String text = StringArgumentType.getString(ctx, "text");
+                    DiscordMCConfig.update(c -> c.privateServerState = text);
                     return feedback(ctx.getSource(), "Private state updated.");
                 }));
     }
@@ -127,19 +132,18 @@ public final class DiscordMCCommand {
         return literal(name)
             .then(argument("seconds", IntegerArgumentType.integer(1, 60))
                 .executes(ctx -> {
-                    DiscordMCConfig.get().updateIntervalSeconds = IntegerArgumentType.getInteger(ctx, "seconds");
-                    DiscordMCConfig.save();
+                    int seconds = IntegerArgumentType.getInteger(ctx, "seconds");
+                    DiscordMCConfig.update(c -> c.updateIntervalSeconds = seconds);
                     return feedback(ctx.getSource(), "Update interval set to " + DiscordMCConfig.get().updateIntervalSeconds + "s");
                 }));
     }
 
-    private static LiteralArgumentBuilder<FabricClientCommandSource> appIdNode(String name, DiscordPresenceService service) {
+    private static LiteralArgumentBuilder<FabricClientCommandSource> appIdNode(String name) {
         return literal(name)
             .then(argument("id", StringArgumentType.word())
                 .executes(ctx -> {
-                    DiscordMCConfig.get().applicationId = StringArgumentType.getString(ctx, "id");
-                    DiscordMCConfig.save();
-                    service.restart();
+                    String id = StringArgumentType.getString(ctx, "id");
+                    DiscordMCConfig.update(c -> c.applicationId = id);
                     return feedback(ctx.getSource(), "Discord application id updated.");
                 }));
     }
@@ -161,17 +165,17 @@ public final class DiscordMCCommand {
             .then(argument("value", StringArgumentType.word())
                 .executes(ctx -> {
                     String value = StringArgumentType.getString(ctx, "value");
-                    DiscordMCConfig.Data c = DiscordMCConfig.get();
-                    switch (key) {
-                        case "largeImageOverworld" -> c.largeImageOverworld = value;
-                        case "largeImageNether" -> c.largeImageNether = value;
-                        case "largeImageEnd" -> c.largeImageEnd = value;
-                        case "smallImageFallback" -> c.smallImageFallback = value;
-                        default -> {
-                            return feedback(ctx.getSource(), "Unknown image key.");
-                        }
+                    Consumer<DiscordMCConfig.Data> edit = switch (key) {
+                        case "largeImageOverworld" -> c -> c.largeImageOverworld = value;
+                        case "largeImageNether" -> c -> c.largeImageNether = value;
+                        case "largeImageEnd" -> c -> c.largeImageEnd = value;
+                        case "smallImageFallback" -> c -> c.smallImageFallback = value;
+                        default -> null;
+                    };
+                    if (edit == null) {
+                        return feedback(ctx.getSource(), "Unknown image key.");
                     }
-                    DiscordMCConfig.save();
+                    DiscordMCConfig.update(edit);
                     return feedback(ctx.getSource(), success);
                 }));
     }
@@ -180,35 +184,63 @@ public final class DiscordMCCommand {
         return literal(name)
             .executes(ctx -> {
                 DiscordMCConfig.load();
-                service.restart();
+                service.reloadServers();
                 return feedback(ctx.getSource(), "Config reloaded.");
             });
     }
 
-    private static LiteralArgumentBuilder<FabricClientCommandSource> statusNode(String name) {
+    private static LiteralArgumentBuilder<FabricClientCommandSource> statusNode(String name, DiscordPresenceService service) {
         return literal(name)
             .executes(ctx -> {
-                DiscordMCConfig.Data c = DiscordMCConfig.get();
+                DiscordMCConfig.Snapshot c = DiscordMCConfig.get();
+                PendingRequests.Stats requests = service.requestStats();
                 return feedback(ctx.getSource(),
                     "enabled=" + c.enabled +
+                        ", connection=" + service.connectionState() +
                         ", private=" + c.privateServerMode +
                         ", showDimension=" + c.showDimension +
                         ", showServerName=" + c.showServerName +
                         ", showPlayerCount=" + c.showPlayerCount +
                         ", showMOTD=" + c.showMOTD +
                         ", joinInvites=" + c.enableJoinInvites +
-                        ", interval=" + c.updateIntervalSeconds + "s");
+                        ", interval=" + c.updateIntervalSeconds + "s" +
+                        ", coalesced=" + service.coalescedUpdates() +
+                        ", acked=" + requests.acked() +
+                        ", rejected=" + requests.rejected() +
+                        ", dropped=" + requests.dropped() +
+                        ", abandoned=" + requests.abandoned() +
+                        ", rtt p50 " + PresenceMetrics.duration(PresenceMetrics.ACK.percentile(0.50)) +
+                        " (avg " + PresenceMetrics.duration(PresenceMetrics.ACK.mean()) + ")");
             });
     }
 
+    private static LiteralArgumentBuilder<FabricClientCommandSource> metricsNode(String name, DiscordPresenceService service) {
+        return literal(name)
+            .executes(ctx -> {
+                PresenceMetrics.describe().forEach(line -> feedback(ctx.getSource(), line));
+                return 1;
+            })
+            .then(literal("reset")
+                .executes(ctx -> {
+                    PresenceMetrics.reset();
+                    return feedback(ctx.getSource(), "Metrics reset.");
+                }))
+            .then(literal("dump")
+                .executes(ctx -> {
+                    service.dumpMetrics();
+                    return feedback(ctx.getSource(), "Metrics written to " + PresenceMetrics.FILE_NAME + ".");
+                }));
+    }
+
     private static int toggleEnabled(FabricClientCommandSource source, DiscordPresenceService service) {
         boolean next = !DiscordMCConfig.get().enabled;
         return setEnabled(source, service, next);
     }
 
     private static int setEnabled(FabricClientCommandSource source, DiscordPresenceService service, boolean value) {
-        DiscordMCConfig.get().enabled = value;
-        DiscordMCConfig.save();
+        DiscordMCConfig.update(c -> c.enabled = value);
+        // The config listener only reacts to a change; enabling again also retries a start that
+        // did not connect, e.g. after the application id was fixed by hand.
         if (value) {
             service.start();
         } else {
@@ -223,13 +255,12 @@ public final class DiscordMCCommand {
     }
 
     private static int setPrivate(FabricClientCommandSource source, boolean value) {
-        DiscordMCConfig.get().privateServerMode = value;
-        DiscordMCConfig.save();
+        DiscordMCConfig.update(c -> c.privateServerMode = value);
         return feedback(source, "Private server mode: " + value);
     }
 
     private static int toggleKey(FabricClientCommandSource source, String key) {
-        DiscordMCConfig.Data c = DiscordMCConfig.get();
+        DiscordMCConfig.Snapshot c = DiscordMCConfig.get();
         return switch (key) {
             case "showDimension" -> setKey(source, key, !c.showDimension);
             case "showServerName" -> setKey(source, key, !c.showServerName);
@@ -243,20 +274,20 @@ public final class DiscordMCCommand {
     }
 
     private static int setKey(FabricClientCommandSource source, String key, boolean value) {
-        DiscordMCConfig.Data c = DiscordMCConfig.get();
-        switch (key) {
-            case "showDimension" -> c.showDimension = value;
-            case "showServerName" -> c.showServerName = value;
-            case "showServerAddress" -> c.showServerAddress = value;
-            case "showPlayerCount" -> c.showPlayerCount = value;
-            case "showMOTD" -> c.showMOTD = value;
-            case "showServerIcon" -> c.showServerIcon = value;
-            case "enableJoinInvites" -> c.enableJoinInvites = value;
-            default -> {
-                return feedback(source, "Unknown toggle.");
-            }
+        Consumer<DiscordMCConfig.Data> edit = switch (key) {
+            case "showDimension" -> c -> c.showDimension = value;
+            case "showServerName" -> c -> c.showServerName = value;
+            case "showServerAddress" -> c -> c.showServerAddress = value;
+            case "showPlayerCount" -> c -> c.showPlayerCount = value;
+            case "showMOTD" -> c -> c.showMOTD = value;
+            case "showServerIcon" -> c -> c.showServerIcon = value;
+            case "enableJoinInvites" -> c -> c.enableJoinInvites = value;
+            default -> null;
+        };
+        if (edit == null) {
+            return feedback(source, "Unknown toggle.");
         }
-        DiscordMCConfig.save();
+        DiscordMCConfig.update(edit);
         return feedback(source, key + "=" + value);
     }
 
@@ -2,54 +2,311 @@ package dev.akgamerz_790.discordmc;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import net.fabricmc.loader.api.FabricLoader;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+/**
+ * The mod config. {@link Data} is the form read from and written to the file; what is handed out
+ * is an immutable {@link Snapshot} of it with the sidebar rules and templates compiled, so any
+ * thread may read the current one without locking. Edits go through {@link #update}, which
+ * publishes a new snapshot from an edited copy. Listeners hear which fields changed, whether from
+ * a command, {@code /discordmc reload}, or an edit to the file picked up by {@link #watch}.
+ */
 public final class DiscordMCConfig {
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
-    private static final Path CONFIG_PATH = FabricLoader.getInstance().getConfigDir().resolve("discordmc.json");
+    private static final String FILE_NAME = "discordmc.json";
+    private static final Path CONFIG_PATH = file(FILE_NAME);
+    // Commands save on every toggle; a burst of them becomes one write once they stop.
+    private static final long SAVE_QUIET_MILLIS = 500L;
+    private static final long SAVE_MAX_DELAY_MILLIS = 5_000L;
+    private static final DebouncedWriter WRITER = new DebouncedWriter(CONFIG_PATH, DiscordMCConfig::serialize, SAVE_QUIET_MILLIS, SAVE_MAX_DELAY_MILLIS);
+    // Editors often save in several steps; wait for the events to settle before reading the file.
+    private static final long WATCH_SETTLE_MILLIS = 100L;
+    private static final List<Listener> LISTENERS = new CopyOnWriteArrayList<>();
 
-    private static Data data = new Data();
+    private static volatile Snapshot current = Snapshot.of(new Data());
+    private static WatchService watcher;
 
     private DiscordMCConfig() {
     }
 
+    /**
+     * Told on the client thread after a new config is published, with the names of the
+     * {@link Data} fields that differ from the previous one. Not called when nothing changed.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onChanged(Snapshot previous, Snapshot current, Set<String> changed);
+    }
+
+    public static void addListener(Listener listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Reads the file and publishes it, or writes the defaults if there is no file yet.
+     */
     public static void load() {
         if (!Files.exists(CONFIG_PATH)) {
             save();
             return;
         }
 
-        try (Reader reader = Files.newBufferedReader(CONFIG_PATH, StandardCharsets.UTF_8)) {
-            Data loaded = GSON.fromJson(reader, Data.class);
-            data = loaded == null ? new Data() : loaded;
-        } catch (IOException e) {
+        Data loaded;
+        try {
+            loaded = read();
+        } catch (IOException | JsonParseException e) {
             DiscordMC.LOGGER.error("Failed to load config, using defaults.", e);
-            data = new Data();
+            loaded = new Data();
         }
+        publish(loaded);
+    }
+
+    /**
+     * Applies {@code edit} to a copy of the current config, publishes the copy and queues a save.
+     * Client thread only.
+     */
+    public static void update(Consumer<Data> edit) {
+        Data next = GSON.fromJson(current.tree, Data.class);
+        edit.accept(next);
+        publish(next);
+        save();
     }
 
+    /**
+     * Queues a write of the current config on the IO thread; see {@link DebouncedWriter}.
+     */
     public static void save() {
+        WRITER.markDirty();
+    }
+
+    /**
+     * Writes a queued save now, for shutdown.
+     */
+    public static void flush() {
+        WRITER.flush();
+    }
+
+    /**
+     * Starts a daemon thread that reloads the config when the file changes on disk. The new
+     * config is read on that thread and published through {@code clientThread}.
+     */
+    public static synchronized void watch(Executor clientThread) {
+        if (watcher != null) {
+            return;
+        }
         try {
-            Files.createDirectories(CONFIG_PATH.getParent());
-            try (Writer writer = Files.newBufferedWriter(CONFIG_PATH, StandardCharsets.UTF_8)) {
-                GSON.toJson(data, writer);
-            }
+            Path directory = CONFIG_PATH.getParent();
+            Files.createDirectories(directory);
+            watcher = directory.getFileSystem().newWatchService();
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
         } catch (IOException e) {
-            DiscordMC.LOGGER.error("Failed to save config.", e);
+            DiscordMC.LOGGER.warn("Could not watch the config file; use /discordmc reload after editing it.", e);
+            watcher = null;
+            return;
+        }
+        WatchService service = watcher;
+        Thread thread = new Thread(() -> watchLoop(service, clientThread), "DiscordMC-ConfigWatch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public static synchronized void stopWatching() {
+        if (watcher == null) {
+            return;
+        }
+        try {
+            watcher.close();
+        } catch (IOException ignored) {
+        }
+        watcher = null;
+    }
+
+    /**
+     * The current config, compiled forms included.
+     */
+    public static Snapshot get() {
+        return current;
+    }
+
+    private static void watchLoop(WatchService service, Executor clientThread) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = drainEvents(key);
+                // Swallow the rest of a multi-step save so it is read once.
+                while ((key = service.poll(WATCH_SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drainEvents(key);
+                }
+                if (!changed || !Files.isRegularFile(CONFIG_PATH)) {
+                    continue;
+                }
+                try {
+                    long writes = WRITER.writeCount();
+                    Data loaded = read();
+                    clientThread.execute(() -> publishExternal(loaded, writes));
+                } catch (IOException | JsonParseException e) {
+                    DiscordMC.LOGGER.warn("Ignoring unreadable {}: {}", FILE_NAME, e.getMessage());
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+        }
+    }
+
+    private static boolean drainEvents(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            changed |= event.context() instanceof Path path && path.toString().equals(FILE_NAME);
+        }
+        key.reset();
+        return changed;
+    }
+
+    private static void publishExternal(Data loaded, long writesWhenRead) {
+        // A save that is waiting or landed since the read holds newer edits, and its own event follows.
+        if (WRITER.isPending() || WRITER.writeCount() != writesWhenRead) {
+            return;
+        }
+        publish(loaded);
+    }
+
+    private static void publish(Data data) {
+        Snapshot previous = current;
+        JsonObject tree = GSON.toJsonTree(data).getAsJsonObject();
+        Set<String> changed = changedFields(previous.tree, tree);
+        if (changed.isEmpty()) {
+            return;
+        }
+        Snapshot next = new Snapshot(data, tree,
+            changed.contains("sidebarRules") ? SidebarRules.compile(data.sidebarRules) : previous.sidebarRules,
+            changed.contains("templates") ? PresenceTemplate.Compiled.compile(data.templates) : previous.templates);
+        current = next;
+        PresenceInputs.mark(PresenceInputs.CONFIG);
+        for (Listener listener : LISTENERS) {
+            listener.onChanged(previous, next, changed);
+        }
+    }
+
+    private static Set<String> changedFields(JsonObject before, JsonObject after) {
+        Set<String> changed = new LinkedHashSet<>();
+        for (String field : after.keySet()) {
+            if (!after.get(field).equals(before.get(field))) {
+                changed.add(field);
+            }
+        }
+        for (String field : before.keySet()) {
+            if (!after.has(field)) {
+                changed.add(field);
+            }
         }
+        return changed;
     }
 
-    public static Data get() {
-        return data;
+    private static Data read() throws IOException {
+        try (Reader reader = Files.newBufferedReader(CONFIG_PATH, StandardCharsets.UTF_8)) {
+            Data loaded = GSON.fromJson(reader, Data.class);
+            return loaded == null ? new Data() : loaded;
+        }
     }
 
+    private static String serialize() {
+        return GSON.toJson(current.tree);
+    }
+
+    /**
+     * A file in the game's config directory, for state the mod keeps next to its config.
+     */
+    static Path file(String name) {
+        return FabricLoader.getInstance().getConfigDir().resolve(name);
+    }
+
+    /**
+     * A published config. The fields are those of {@link Data}, with {@code sidebarRules} and
+     * {@code templates} in compiled form; the file form stays private to this class.
+     */
+    public static final class Snapshot {
+        public final boolean enabled;
+        public final String applicationId;
+        public final boolean showDimension;
+        public final boolean showServerName;
+        public final boolean showServerAddress;
+        public final boolean showPlayerCount;
+        public final boolean showMOTD;
+        public final boolean showServerIcon;
+        public final boolean enableJoinInvites;
+        public final boolean privateServerMode;
+        public final String privateServerState;
+        public final String menuDetails;
+        public final String singleplayerState;
+        public final String largeImageOverworld;
+        public final String largeImageNether;
+        public final String largeImageEnd;
+        public final String largeImageMenu;
+        public final String largeImageText;
+        public final String smallImageFallback;
+        public final int updateIntervalSeconds;
+        public final int metricsDumpSeconds;
+        final SidebarRules sidebarRules;
+        final PresenceTemplate.Compiled templates;
+        // Never handed out, so it is as immutable as the rest; diffed, saved and copied for edits.
+        private final JsonObject tree;
+
+        private Snapshot(Data data, JsonObject tree, SidebarRules sidebarRules, PresenceTemplate.Compiled templates) {
+            enabled = data.enabled;
+            applicationId = data.applicationId;
+            showDimension = data.showDimension;
+            showServerName = data.showServerName;
+            showServerAddress = data.showServerAddress;
+            showPlayerCount = data.showPlayerCount;
+            showMOTD = data.showMOTD;
+            showServerIcon = data.showServerIcon;
+            enableJoinInvites = data.enableJoinInvites;
+            privateServerMode = data.privateServerMode;
+            privateServerState = data.privateServerState;
+            menuDetails = data.menuDetails;
+            singleplayerState = data.singleplayerState;
+            largeImageOverworld = data.largeImageOverworld;
+            largeImageNether = data.largeImageNether;
+            largeImageEnd = data.largeImageEnd;
+            largeImageMenu = data.largeImageMenu;
+            largeImageText = data.largeImageText;
+            smallImageFallback = data.smallImageFallback;
+            updateIntervalSeconds = data.updateIntervalSeconds;
+            metricsDumpSeconds = data.metricsDumpSeconds;
+            this.sidebarRules = sidebarRules;
+            this.templates = templates;
+            this.tree = tree;
+        }
+
+        private static Snapshot of(Data data) {
+            return new Snapshot(data, GSON.toJsonTree(data).getAsJsonObject(),
+                SidebarRules.compile(data.sidebarRules), PresenceTemplate.Compiled.compile(data.templates));
+        }
+    }
+
+    /**
+     * The config as it is stored in the file, and the copy an {@link #update} edits.
+     */
     public static final class Data {
         public boolean enabled = true;
         public String applicationId = "1472653254188859422";
@@ -71,5 +328,33 @@ public final class DiscordMCConfig {
         public String largeImageText = "Minecraft";
         public String smallImageFallback = "server";
         public int updateIntervalSeconds = 5;
+        public int metricsDumpSeconds = 0;
+        public List<SidebarRule> sidebarRules = new ArrayList<>(List.of(new SidebarRule("map", "Map:", false)));
+        public Templates templates = new Templates();
+    }
+
+    /**
+     * Layouts for the details and state lines; see {@link PresenceTemplate} for the syntax.
+     */
+    public static final class Templates {
+        public String multiplayerDetails = "[{?hypixel}{?mode}Team {team}||{!hypixel}Playing {mode}[ on {map}][ \\[{team}\\]]||{motd}||{menu}||In the {world}]";
+        public String multiplayerState = "[Playing on {server}||Playing multiplayer][ ({address})][ ({players})][{?hypixel} | Playing {mode}[ {variant}][ on {map}]]";
+        public String singleplayerDetails = "Singleplayer";
+        public String singleplayerState = "{singleplayer}[ | {dimension}]";
+    }
+
+    public static final class SidebarRule {
+        public String field = "map";
+        public String match = "";
+        public boolean regex = false;
+
+        public SidebarRule() {
+        }
+
+        public SidebarRule(String field, String match, boolean regex) {
+            this.field = field;
+            this.match = match;
+            this.regex = regex;
+        }
     }
 }
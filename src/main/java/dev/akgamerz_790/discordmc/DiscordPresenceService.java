@@ -6,15 +6,9 @@ import net.minecraft.registry.RegistryKey;
 import net.minecraft.text.Text;
 import net.minecraft.world.World;
 
-import java.io.IOException;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
-import java.util.StringJoiner;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -22,19 +16,33 @@ public final class DiscordPresenceService {
     private static final Pattern PLAYER_COUNT_PATTERN = Pattern.compile("(\\d+)\\s*/\\s*(\\d+)");
     private static final Pattern MODE_PREFIX_PATTERN = Pattern.compile("(?i)^(mode|game|map|server|lobby)\\s*:\\s*");
 
-    private final DiscordIpcClient ipcClient = new DiscordIpcClient();
-    private Thread callbacksThread;
+    private final DiscordIpcClient ipcClient;
+    private final DiscordConnection connection;
+    private final PresenceDispatcher dispatcher;
     private long startEpochSeconds;
     private long nextUpdateMillis;
+    private long nextMetricsDumpMillis;
     private boolean started;
     private PresenceSnapshot lastSnapshot;
+    private GameStateReader gameState;
+    private final TextCache texts = new TextCache();
+    private final PresenceTemplate.Renderer renderer = new PresenceTemplate.Renderer();
+    private final GameInputs inputs = new GameInputs();
+    private final ServerIdentityCache identities = new ServerIdentityCache(new LearnedServers(DiscordMCConfig.file(LearnedServers.FILE_NAME)));
+    private final DebouncedWriter metricsWriter = new DebouncedWriter(DiscordMCConfig.file(PresenceMetrics.FILE_NAME), PresenceMetrics::toJson, 0L);
+
+    public DiscordPresenceService() {
+        ipcClient = new DiscordIpcClient(DiscordMCConfig.file("discordmc-ipc.json"), this::onActivityRejected);
+        connection = new DiscordConnection(ipcClient, this::onConnectionReady);
+        dispatcher = new PresenceDispatcher(ipcClient, connection::isReady, connection::reportFailure);
+    }
 
     public void start() {
         if (started) {
             return;
         }
 
-        DiscordMCConfig.Data config = DiscordMCConfig.get();
+        DiscordMCConfig.Snapshot config = DiscordMCConfig.get();
         if (!config.enabled) {
             return;
         }
@@ -45,18 +53,18 @@ public final class DiscordPresenceService {
             return;
         }
 
-        if (!ipcClient.connect(appId)) {
-            DiscordMC.LOGGER.warn("Could not connect to Discord IPC. Make sure Discord desktop app is running.");
-            return;
+        if (gameState == null) {
+            gameState = GameStateReader.detect(MinecraftClient.getInstance());
         }
 
         startEpochSeconds = System.currentTimeMillis() / 1000L;
-        callbacksThread = new Thread(this::runCallbacks, "DiscordMC-RPC");
-        callbacksThread.setDaemon(true);
-        callbacksThread.start();
+        dispatcher.start();
+        connection.start(appId);
         started = true;
+        identities.invalidate();
         lastSnapshot = null;
         nextUpdateMillis = 0L;
+        PresenceInputs.mark(PresenceInputs.ALL);
     }
 
     public void stop() {
@@ -65,13 +73,55 @@ public final class DiscordPresenceService {
         }
 
         started = false;
-        if (callbacksThread != null) {
-            callbacksThread.interrupt();
-            callbacksThread = null;
+        dispatcher.stop();
+        connection.stop();
+    }
+
+    public void shutdown() {
+        stop();
+        connection.shutdown();
+        identities.flush();
+        metricsWriter.flush();
+    }
+
+    public void onJoin(MinecraftClient client) {
+        identities.invalidate();
+        TeamSizeTracker.reset();
+        SidebarParser.reset();
+        if (gameState != null && !client.isInSingleplayer()) {
+            identities.get(client.getCurrentServerEntry(), gameState);
         }
+        PresenceInputs.mark(PresenceInputs.CONNECTION | PresenceInputs.SERVER_INFO);
+    }
+
+    public void onDisconnect(MinecraftClient client) {
+        identities.invalidate();
+        TeamSizeTracker.reset();
+        SidebarParser.reset();
+        PresenceInputs.mark(PresenceInputs.CONNECTION);
+    }
+
+    public void onWorldChange(MinecraftClient client) {
+        PresenceInputs.mark(PresenceInputs.WORLD);
+    }
+
+    public DiscordConnection.State connectionState() {
+        return connection.state();
+    }
 
-        ipcClient.clearActivity();
-        ipcClient.close();
+    public long coalescedUpdates() {
+        return dispatcher.coalescedCount();
+    }
+
+    public PendingRequests.Stats requestStats() {
+        return ipcClient.requestStats();
+    }
+
+    /**
+     * Writes the metrics file on the IO thread now, whether or not periodic dumps are on.
+     */
+    public void dumpMetrics() {
+        metricsWriter.markDirty();
     }
 
     public void restart() {
@@ -79,65 +129,218 @@ public final class DiscordPresenceService {
         start();
     }
 
+    /**
+     * A {@link DiscordMCConfig.Listener}. Every field but the application id only changes what is
+     * shown, which the next capture picks up, so only that one reconnects.
+     */
+    public void onConfigChanged(DiscordMCConfig.Snapshot previous, DiscordMCConfig.Snapshot current, Set<String> changed) {
+        if (!current.enabled) {
+            stop();
+        } else if (started && changed.contains("applicationId")) {
+            restart();
+        } else {
+            start();
+        }
+    }
+
+    /**
+     * Re-reads the bundled and user server lists and resolves the current server again.
+     */
+    public void reloadServers() {
+        ServerRegistry.reload();
+        identities.invalidate();
+        PresenceInputs.mark(PresenceInputs.SERVER_INFO);
+    }
+
     public void onTick(MinecraftClient client) {
         if (!started) {
             return;
         }
 
-        DiscordMCConfig.Data config = DiscordMCConfig.get();
+        DiscordMCConfig.Snapshot config = DiscordMCConfig.get();
         if (!config.enabled) {
             stop();
             return;
         }
 
+        // No event fires when the server list re-pings a server, so the interval only checks its label and count.
         long now = System.currentTimeMillis();
-        if (now < nextUpdateMillis) {
+        if (now >= nextUpdateMillis) {
+            int interval = Math.max(1, config.updateIntervalSeconds);
+            nextUpdateMillis = now + (interval * 1000L);
+            if (client.world != null && !client.isInSingleplayer() && inputs.serverInfoChanged(client.getCurrentServerEntry(), gameState)) {
+                PresenceInputs.mark(PresenceInputs.SERVER_INFO);
+            }
+        }
+        if (config.metricsDumpSeconds > 0 && now >= nextMetricsDumpMillis) {
+            nextMetricsDumpMillis = now + (config.metricsDumpSeconds * 1000L);
+            metricsWriter.markDirty();
+        }
+        if (!PresenceInputs.isDirty()) {
             return;
         }
-        int interval = Math.max(1, config.updateIntervalSeconds);
-        nextUpdateMillis = now + (interval * 1000L);
+        int dirty = PresenceInputs.drain();
 
-        PresenceSnapshot snapshot = PresenceSnapshot.capture(client, config);
+        long captureStart = System.nanoTime();
+        PresenceSnapshot snapshot = PresenceSnapshot.capture(client, dirty, config, gameState, texts, identities, inputs, renderer);
+        PresenceMetrics.CAPTURE.record(System.nanoTime() - captureStart);
+        PresenceMetrics.CAPTURES.increment();
         if (Objects.equals(snapshot, lastSnapshot)) {
+            PresenceMetrics.UNCHANGED_CAPTURES.increment();
             return;
         }
         lastSnapshot = snapshot;
 
-        try {
-            ipcClient.setActivity(new DiscordIpcClient.Activity(
-                snapshot.details,
-                snapshot.state,
-                snapshot.largeImageKey,
-                snapshot.largeImageText,
-                snapshot.smallImageKey,
-                snapshot.smallImageText,
-                snapshot.partyId,
-                snapshot.partySize,
-                snapshot.partyMax,
-                snapshot.joinSecret,
-                startEpochSeconds
-            ));
-        } catch (IOException e) {
-            DiscordMC.LOGGER.warn("Failed to update Discord presence: {}", e.getMessage());
-            stop();
+        dispatcher.publish(new DiscordIpcClient.Activity(
+            snapshot.details,
+            snapshot.state,
+            snapshot.largeImageKey,
+            snapshot.largeImageText,
+            snapshot.smallImageKey,
+            snapshot.smallImageText,
+            snapshot.partyId,
+            snapshot.partySize,
+            snapshot.partyMax,
+            snapshot.joinSecret,
+            startEpochSeconds
+        ));
+    }
+
+    private void onConnectionReady() {
+        dispatcher.replay();
+    }
+
+    private void onActivityRejected(DiscordIpcClient.Activity activity) {
+        dispatcher.retry(activity);
+    }
+
+    /**
+     * Memoizes the {@link ServerIdentity} for the current connection. The entry stays valid while
+     * the same {@code ServerInfo} instance keeps the same address and label, and is dropped on join
+     * and disconnect.
+     */
+    private static final class ServerIdentityCache {
+        private final LearnedServers learned;
+        private final TextFlattener labelFlattener = new TextFlattener();
+        private ServerInfo info;
+        private String address;
+        private Text label;
+        private ServerIdentity identity;
+        private boolean sidebarSeen;
+
+        ServerIdentityCache(LearnedServers learned) {
+            this.learned = learned;
+        }
+
+        ServerIdentity get(ServerInfo info, GameStateReader reader) {
+            if (info == null) {
+                return ServerIdentity.NONE;
+            }
+
+            Text currentLabel = reader.serverLabel(info);
+            if (identity != null && info == this.info && currentLabel == label && Objects.equals(info.address, address)) {
+                return identity;
+            }
+
+            this.info = info;
+            this.address = info.address;
+            this.label = currentLabel;
+            this.identity = ServerIdentityResolver.identify(info, labelFlattener.flatten(currentLabel, null), learned);
+            return identity;
+        }
+
+        /**
+         * Remembers the sidebar mode for the current host. Until the sidebar has shown a mode on
+         * this connection, the mode last seen on the host stands in for it.
+         */
+        String mode(ServerIdentity identity, String sidebarMode) {
+            if (!sidebarMode.isEmpty()) {
+                sidebarSeen = true;
+                learned.recordMode(identity.host(), sidebarMode);
+                return sidebarMode;
+            }
+            return sidebarSeen ? "" : identity.lastMode();
+        }
+
+        void flush() {
+            learned.flush();
+        }
+
+        void invalidate() {
+            info = null;
+            address = null;
+            label = null;
+            identity = null;
+            sidebarSeen = false;
         }
     }
 
-    private void runCallbacks() {
-        while (!Thread.currentThread().isInterrupted()) {
-            try {
-                ipcClient.poll();
-                Thread.sleep(2000L);
-            } catch (InterruptedException ignored) {
-                Thread.currentThread().interrupt();
-            } catch (IOException e) {
-                DiscordMC.LOGGER.warn("Discord IPC disconnected: {}", e.getMessage());
-                Thread.currentThread().interrupt();
+    /**
+     * The flattened form of each text a capture reads, kept from the previous capture so a text
+     * that has not changed is recognised without allocating a new string.
+     */
+    private static final class TextCache {
+        private final TextFlattener flattener = new TextFlattener();
+        private String playerCountLabel = "";
+        private String sidebarTitle = "";
+        private String tabHeader = "";
+        private String tabFooter = "";
+        private String tabHeaderFooter = "";
+
+        String playerCountLabel(Text text) {
+            playerCountLabel = flattener.flatten(text, playerCountLabel);
+            return playerCountLabel;
+        }
+
+        String sidebarTitle(Text text) {
+            sidebarTitle = flattener.flatten(text, sidebarTitle);
+            return sidebarTitle;
+        }
+
+        String tabHeaderFooter(Text header, Text footer) {
+            String flatHeader = flattener.flatten(header, tabHeader);
+            String flatFooter = flattener.flatten(footer, tabFooter);
+            if (flatHeader != tabHeader || flatFooter != tabFooter) {
+                tabHeader = flatHeader;
+                tabFooter = flatFooter;
+                tabHeaderFooter = flatHeader.isEmpty() ? flatFooter : flatFooter.isEmpty() ? flatHeader : flatHeader + " " + flatFooter;
+            }
+            return tabHeaderFooter;
+        }
+    }
+
+    /**
+     * What the last multiplayer capture read from the game, so a capture only re-reads the inputs
+     * whose {@link PresenceInputs} bit was set since.
+     */
+    private static final class GameInputs {
+        private ServerIdentity identity = ServerIdentity.NONE;
+        private String sidebarMode = "";
+        private String mode = "";
+        private String map = "";
+        private int[] counts = {0, 0};
+        private String variant = "";
+        private String team = "";
+        private Text heartbeatLabel;
+        private Text heartbeatCountLabel;
+
+        /**
+         * Whether the server entry's label or player count text was replaced since the last check.
+         */
+        boolean serverInfoChanged(ServerInfo info, GameStateReader reader) {
+            if (info == null) {
+                return false;
             }
+            Text label = reader.serverLabel(info);
+            Text countLabel = reader.playerCountLabel(info);
+            boolean changed = label != heartbeatLabel || countLabel != heartbeatCountLabel;
+            heartbeatLabel = label;
+            heartbeatCountLabel = countLabel;
+            return changed;
         }
     }
 
-    private record PresenceSnapshot(
+    record PresenceSnapshot(
         String details,
         String state,
         String largeImageKey,
@@ -149,20 +352,55 @@ public final class DiscordPresenceService {
         int partyMax,
         String joinSecret
     ) {
-        static PresenceSnapshot capture(MinecraftClient client, DiscordMCConfig.Data config) {
+        // Inputs that change what every other input means, so any of them re-reads everything.
+        private static final int CONTEXT = PresenceInputs.CONNECTION | PresenceInputs.WORLD | PresenceInputs.CONFIG;
+
+        static PresenceSnapshot capture(MinecraftClient client, int dirty, DiscordMCConfig.Snapshot config, GameStateReader reader, TextCache texts, ServerIdentityCache identities, GameInputs inputs, PresenceTemplate.Renderer renderer) {
             if (client.world == null || client.player == null) {
                 return menu(config);
             }
 
             if (client.isInSingleplayer()) {
-                return singleplayer(client, config);
+                return singleplayer(client, config, renderer);
             }
 
             ServerInfo info = client.getCurrentServerEntry();
-            return multiplayer(client, info, config);
+            refresh(client, (dirty & CONTEXT) != 0 ? PresenceInputs.ALL : dirty, info, config, reader, texts, identities, inputs);
+            return multiplayer(client, inputs, config, renderer);
         }
 
-        private static PresenceSnapshot menu(DiscordMCConfig.Data config) {
+        private static void refresh(MinecraftClient client, int dirty, ServerInfo info, DiscordMCConfig.Snapshot config, GameStateReader reader, TextCache texts, ServerIdentityCache identities, GameInputs inputs) {
+            PresenceTemplate.Compiled templates = config.templates;
+            long used = templates.multiplayerDetails().used() | templates.multiplayerState().used();
+            boolean serverInfo = (dirty & PresenceInputs.SERVER_INFO) != 0;
+            boolean scoreboard = (dirty & PresenceInputs.SCOREBOARD) != 0;
+            boolean teams = (dirty & PresenceInputs.TEAMS) != 0;
+
+            if (serverInfo) {
+                inputs.identity = identities.get(info, reader);
+            }
+            if (scoreboard) {
+                SidebarParser.Fields sidebar = reader.sidebarFields(client);
+                inputs.sidebarMode = sidebar.mode().isEmpty() ? getModeFromSidebar(client, reader, texts) : clean(sidebar.mode());
+                inputs.map = clean(sidebar.map());
+            }
+            if (serverInfo || scoreboard) {
+                inputs.mode = clean(identities.mode(inputs.identity, inputs.sidebarMode));
+            }
+            if (serverInfo || (dirty & PresenceInputs.PLAYER_LIST) != 0) {
+                boolean counted = (config.showPlayerCount && reads(used, PresenceTemplate.PLAYERS))
+                    || (config.enableJoinInvites && inputs.identity.partyId() != null);
+                inputs.counts = counted ? getPlayerCountParts(client, info, reader, texts) : new int[]{0, 0};
+            }
+            if (serverInfo || scoreboard || teams) {
+                inputs.variant = reads(used, PresenceTemplate.VARIANT) ? teamVariant(client, reader, inputs.mode) : "";
+            }
+            if (teams) {
+                inputs.team = reads(used, PresenceTemplate.TEAM) ? reader.ownTeamColor(client) : "";
+            }
+        }
+
+        private static PresenceSnapshot menu(DiscordMCConfig.Snapshot config) {
             return new PresenceSnapshot(
                 normalizeDetails(config.menuDetails),
                 "In the menus",
@@ -177,19 +415,18 @@ public final class DiscordPresenceService {
             );
         }
 
-        private static PresenceSnapshot singleplayer(MinecraftClient client, DiscordMCConfig.Data config) {
-            String details = "Singleplayer";
-            String state = config.singleplayerState;
-            String dimension = getDimensionName(client.world.getRegistryKey());
-
-            if (config.showDimension) {
-                state = state + " | " + dimension;
-            }
+        private static PresenceSnapshot singleplayer(MinecraftClient client, DiscordMCConfig.Snapshot config, PresenceTemplate.Renderer renderer) {
+            PresenceTemplate.Compiled templates = config.templates;
+            RegistryKey<World> worldKey = client.world.getRegistryKey();
+            renderer.clear();
+            renderer.set(PresenceTemplate.SINGLEPLAYER, config.singleplayerState);
+            renderer.set(PresenceTemplate.MENU, normalizeDetails(config.menuDetails));
+            setDimension(renderer, worldKey, config);
 
             return new PresenceSnapshot(
-                details,
-                state,
-                pickLargeImageForDimension(client.world.getRegistryKey(), config),
+                emptyToNull(renderer.details(templates.singleplayerDetails())),
+                renderer.state(templates.singleplayerState()),
+                pickLargeImageForDimension(worldKey, config),
                 emptyToNull(config.largeImageText),
                 null,
                 null,
@@ -200,72 +437,33 @@ public final class DiscordPresenceService {
             );
         }
 
-        private static PresenceSnapshot multiplayer(MinecraftClient client, ServerInfo info, DiscordMCConfig.Data config) {
-            String details = null;
-            String state = "Playing multiplayer";
-            String motd = getMotd(info);
-            String resolvedServer = ServerIdentityResolver.resolve(info, motd);
-            String mode = getModeFromSidebar(client);
-            String modeWithVariant = addTeamVariantIfPresent(client, mode);
-
-            if (config.privateServerMode) {
-                state = config.privateServerState;
-            } else {
-                if (config.showServerName && !resolvedServer.isEmpty()) {
-                    state = "Playing on " + resolvedServer;
-                }
-                if (config.showServerAddress && info != null && info.address != null && !info.address.isBlank()) {
-                    state = state + " (" + info.address + ")";
-                }
-            }
-
-            if (!config.privateServerMode && config.showPlayerCount) {
-                String counts = getPlayerCounts(client, info);
-                if (!counts.isEmpty()) {
-                    state = state + " (" + counts + ")";
-                }
-            }
-
-            if (!config.privateServerMode && "Hypixel".equalsIgnoreCase(resolvedServer) && !modeWithVariant.isEmpty()) {
-                state = state + " | Playing " + modeWithVariant;
-            }
-
-            if (!config.privateServerMode) {
-                String color = getOwnTeamColor(client);
-                if (!mode.isEmpty()) {
-                    if ("Hypixel".equalsIgnoreCase(resolvedServer)) {
-                        if (!color.isEmpty()) {
-                            details = "Team " + color;
-                        }
-                    } else {
-                        details = "Playing " + mode;
-                        if (!color.isEmpty()) {
-                            details = details + " [" + color + "]";
-                        }
-                    }
-                }
-            }
-
-            if (details == null && !config.privateServerMode && config.showMOTD) {
-                if (!motd.isEmpty()) {
-                    details = motd;
-                }
-            }
-
-            if (details == null) {
-                String fallback = normalizeDetails(config.menuDetails);
-                if (fallback != null) {
-                    details = fallback;
-                } else if (config.showDimension) {
-                    String dimension = getDimensionName(client.world.getRegistryKey());
-                    details = "In the " + dimension.toLowerCase();
-                }
-            }
+        private static PresenceSnapshot multiplayer(MinecraftClient client, GameInputs inputs, DiscordMCConfig.Snapshot config, PresenceTemplate.Renderer renderer) {
+            PresenceTemplate.Compiled templates = config.templates;
+            ServerIdentity identity = inputs.identity;
+            String resolvedServer = identity.name();
+            // Private mode hides everything about the server; placeholders no template reads were left empty.
+            boolean shown = !config.privateServerMode;
+
+            renderer.set(PresenceTemplate.SERVER, shown && config.showServerName ? resolvedServer : "");
+            renderer.set(PresenceTemplate.ADDRESS, shown && config.showServerAddress ? identity.address() : "");
+            renderer.set(PresenceTemplate.PLAYERS, shown && config.showPlayerCount ? formatPlayerCounts(inputs.counts) : "");
+            renderer.set(PresenceTemplate.MODE, shown ? inputs.mode : "");
+            renderer.set(PresenceTemplate.VARIANT, shown ? inputs.variant : "");
+            renderer.set(PresenceTemplate.MAP, shown ? inputs.map : "");
+            renderer.set(PresenceTemplate.TEAM, shown ? inputs.team : "");
+            renderer.set(PresenceTemplate.MOTD, shown && config.showMOTD ? identity.motd() : "");
+            renderer.set(PresenceTemplate.MENU, normalizeDetails(config.menuDetails));
+            renderer.set(PresenceTemplate.HYPIXEL, shown && "Hypixel".equalsIgnoreCase(resolvedServer) ? resolvedServer : "");
+            renderer.set(PresenceTemplate.SINGLEPLAYER, "");
+            setDimension(renderer, client.world.getRegistryKey(), config);
+
+            String details = emptyToNull(renderer.details(templates.multiplayerDetails()));
+            String state = config.privateServerMode ? config.privateServerState : renderer.state(templates.multiplayerState());
 
             String smallKey = null;
             String smallText = null;
             if (!config.privateServerMode && config.showServerIcon) {
-                smallKey = emptyToNull(ServerIdentityResolver.resolveSmallImageKey(info, config.smallImageFallback));
+                smallKey = emptyToNull(identity.iconKey().isEmpty() ? config.smallImageFallback : identity.iconKey());
                 smallText = resolvedServer.isEmpty() ? null : resolvedServer;
             }
 
@@ -273,14 +471,11 @@ public final class DiscordPresenceService {
             int partySize = 0;
             int partyMax = 0;
             String joinSecret = null;
-            if (!config.privateServerMode && config.enableJoinInvites && info != null && info.address != null && !info.address.isBlank()) {
-                String address = info.address.trim();
-                String host = ServerIdentityResolver.extractHost(address);
-                partyId = "server:" + (host.isEmpty() ? address.toLowerCase(Locale.ROOT) : host);
-                int[] counts = getPlayerCountParts(client, info);
-                partySize = counts[0];
-                partyMax = counts[1];
-                joinSecret = address;
+            if (!config.privateServerMode && config.enableJoinInvites && identity.partyId() != null) {
+                partyId = identity.partyId();
+                partySize = inputs.counts[0];
+                partyMax = inputs.counts[1];
+                joinSecret = identity.address();
             }
 
             return new PresenceSnapshot(
@@ -297,7 +492,7 @@ public final class DiscordPresenceService {
             );
         }
 
-        private static String pickLargeImageForDimension(RegistryKey<World> worldKey, DiscordMCConfig.Data config) {
+        private static String pickLargeImageForDimension(RegistryKey<World> worldKey, DiscordMCConfig.Snapshot config) {
             if (World.NETHER.equals(worldKey)) {
                 return emptyToNull(config.largeImageNether);
             }
@@ -307,8 +502,7 @@ public final class DiscordPresenceService {
             return emptyToNull(config.largeImageOverworld);
         }
 
-        private static String getPlayerCounts(MinecraftClient client, ServerInfo info) {
-            int[] countParts = getPlayerCountParts(client, info);
+        private static String formatPlayerCounts(int[] countParts) {
             if (countParts[0] > 0 && countParts[1] >= countParts[0]) {
                 return countParts[0] + "/" + countParts[1];
             }
@@ -318,25 +512,25 @@ public final class DiscordPresenceService {
             return "";
         }
 
-        private static int[] getPlayerCountParts(MinecraftClient client, ServerInfo info) {
-            int[] pingCounts = parseCountParts(getFieldString(info, "playerCountLabel"));
+        private static int[] getPlayerCountParts(MinecraftClient client, ServerInfo info, GameStateReader reader, TextCache texts) {
+            int[] pingCounts = parseCountParts(texts.playerCountLabel(reader.playerCountLabel(info)));
             if (pingCounts[0] > 0 && pingCounts[1] > 0) {
                 return pingCounts;
             }
 
-            int[] tabCounts = parseCountParts(getTabHeaderFooter(client));
+            int[] tabCounts = parseCountParts(texts.tabHeaderFooter(reader.tabHeader(client), reader.tabFooter(client)));
             if (tabCounts[0] > 0 && tabCounts[1] > 0) {
                 return tabCounts;
             }
 
-            int online = getOnlineTabCount(client);
+            int online = reader.onlineTabCount(client);
             if (online > 0) {
                 return new int[]{online, 0};
             }
             return new int[]{0, 0};
         }
 
-        private static int[] parseCountParts(String raw) {
+        static int[] parseCountParts(String raw) {
             if (raw == null || raw.isBlank()) {
                 return new int[]{0, 0};
             }
@@ -353,59 +547,8 @@ public final class DiscordPresenceService {
             }
         }
 
-        private static int getOnlineTabCount(MinecraftClient client) {
-            Object handler = invokeNoArg(client, "getNetworkHandler");
-            if (handler == null) {
-                return -1;
-            }
-            Object playerList = invokeNoArg(handler, "getPlayerList");
-            if (playerList instanceof Collection<?> entries) {
-                return entries.size();
-            }
-            return -1;
-        }
-
-        private static String getTabHeaderFooter(MinecraftClient client) {
-            Object handler = invokeNoArg(client, "getNetworkHandler");
-            if (handler == null) {
-                return "";
-            }
-
-            StringBuilder combined = new StringBuilder();
-            String header = textToString(invokeNoArg(handler, "getPlayerListHeader"));
-            String footer = textToString(invokeNoArg(handler, "getPlayerListFooter"));
-            if (!header.isEmpty()) {
-                combined.append(header).append(' ');
-            }
-            if (!footer.isEmpty()) {
-                combined.append(footer);
-            }
-            return clean(combined.toString());
-        }
-
-        private static String getModeFromSidebar(MinecraftClient client) {
-            if (client.world == null) {
-                return "";
-            }
-
-            Object scoreboard = invokeNoArg(client.world, "getScoreboard");
-            if (scoreboard == null) {
-                return "";
-            }
-
-            Object sidebarSlot = getSidebarSlotConstant();
-            Object objective = null;
-            if (sidebarSlot != null) {
-                objective = invoke(scoreboard, "getObjectiveForSlot", new Class<?>[]{sidebarSlot.getClass()}, new Object[]{sidebarSlot});
-            }
-            if (objective == null) {
-                objective = invoke(scoreboard, "getObjectiveForSlot", new Class<?>[]{int.class}, new Object[]{1});
-            }
-            if (objective == null) {
-                return "";
-            }
-
-            String title = clean(textToString(invokeNoArg(objective, "getDisplayName")));
+        private static String getModeFromSidebar(MinecraftClient client, GameStateReader reader, TextCache texts) {
+            String title = texts.sidebarTitle(reader.sidebarTitle(client));
             if (title.isEmpty()) {
                 return "";
             }
@@ -414,178 +557,22 @@ public final class DiscordPresenceService {
             return title;
         }
 
-        private static String addTeamVariantIfPresent(MinecraftClient client, String mode) {
-            String cleanedMode = clean(mode);
-            if (cleanedMode.isEmpty()) {
-                return "";
-            }
-
-            String lower = cleanedMode.toLowerCase(Locale.ROOT);
+        private static String teamVariant(MinecraftClient client, GameStateReader reader, String mode) {
+            String lower = mode.toLowerCase(Locale.ROOT);
             if (!lower.contains("bedwars") && !lower.contains("bed wars")) {
-                return cleanedMode;
-            }
-
-            String variant = getTeamVariant(client);
-            if (variant.isEmpty()) {
-                return cleanedMode;
-            }
-            return cleanedMode + " " + variant;
-        }
-
-        private static String getTeamVariant(MinecraftClient client) {
-            if (client.world == null) {
-                return "";
-            }
-            Object scoreboard = invokeNoArg(client.world, "getScoreboard");
-            if (scoreboard == null) {
-                return "";
-            }
-
-            Object teamsObj = invokeNoArg(scoreboard, "getTeams");
-            if (!(teamsObj instanceof Iterable<?> iterable)) {
-                return "";
-            }
-
-            List<Integer> teamSizes = new ArrayList<>();
-            for (Object team : iterable) {
-                if (team == null || !isColoredTeam(team)) {
-                    continue;
-                }
-                int size = getTeamPlayerCount(team);
-                if (size <= 0) {
-                    continue;
-                }
-                teamSizes.add(size);
-            }
-
-            if (teamSizes.size() < 2) {
-                return "";
-            }
-
-            StringJoiner joiner = new StringJoiner("v");
-            for (Integer size : teamSizes) {
-                joiner.add(Integer.toString(size));
-            }
-            return joiner.toString();
-        }
-
-        private static boolean isColoredTeam(Object team) {
-            Object color = invokeNoArg(team, "getColor");
-            if (color == null) {
-                return false;
-            }
-            String name = color.toString().trim().toUpperCase(Locale.ROOT);
-            return !name.isEmpty() && !"RESET".equals(name);
-        }
-
-        private static int getTeamPlayerCount(Object team) {
-            Object players = invokeNoArg(team, "getPlayerList");
-            if (players instanceof Collection<?> entries) {
-                return entries.size();
-            }
-            if (players instanceof Iterable<?> iterable) {
-                int count = 0;
-                for (Object ignored : iterable) {
-                    count++;
-                }
-                return count;
-            }
-            return -1;
-        }
-
-        private static Object getSidebarSlotConstant() {
-            try {
-                Class<?> slotClass = Class.forName("net.minecraft.scoreboard.ScoreboardDisplaySlot");
-                Field sidebarField = slotClass.getField("SIDEBAR");
-                return sidebarField.get(null);
-            } catch (Throwable ignored) {
-                return null;
-            }
-        }
-
-        private static String getOwnTeamColor(MinecraftClient client) {
-            if (client.player == null) {
-                return "";
-            }
-
-            Object team = invokeNoArg(client.player, "getScoreboardTeam");
-            if (team == null) {
-                team = invokeNoArg(client.player, "getTeam");
-            }
-            if (team == null) {
-                return "";
-            }
-
-            Object color = invokeNoArg(team, "getColor");
-            if (color == null) {
                 return "";
             }
-
-            String colorName = color.toString().trim();
-            if (colorName.isEmpty()) {
-                return "";
-            }
-            return colorName.toUpperCase(Locale.ROOT);
+            return reader.teamVariant(client);
         }
 
-        private static String getMotd(ServerInfo info) {
-            if (info == null) {
-                return "";
-            }
-            String raw = getFieldString(info, "label");
-            return clean(raw);
+        private static void setDimension(PresenceTemplate.Renderer renderer, RegistryKey<World> worldKey, DiscordMCConfig.Snapshot config) {
+            String dimension = config.showDimension ? getDimensionName(worldKey) : "";
+            renderer.set(PresenceTemplate.DIMENSION, dimension);
+            renderer.set(PresenceTemplate.WORLD, dimension.toLowerCase(Locale.ROOT));
         }
 
-        private static String getFieldString(ServerInfo info, String fieldName) {
-            if (info == null) {
-                return "";
-            }
-            try {
-                Field field = ServerInfo.class.getDeclaredField(fieldName);
-                field.setAccessible(true);
-                Object value = field.get(info);
-                if (value instanceof Text text) {
-                    return text.getString();
-                }
-                if (value != null) {
-                    return value.toString();
-                }
-            } catch (Throwable ignored) {
-            }
-            return "";
-        }
-
-        private static Object invokeNoArg(Object target, String methodName) {
-            if (target == null) {
-                return null;
-            }
-            try {
-                Method method = target.getClass().getMethod(methodName);
-                method.setAccessible(true);
-                return method.invoke(target);
-            } catch (Throwable ignored) {
-                return null;
-            }
-        }
-
-        private static Object invoke(Object target, String methodName, Class<?>[] parameterTypes, Object[] args) {
-            if (target == null) {
-                return null;
-            }
-            try {
-                Method method = target.getClass().getMethod(methodName, parameterTypes);
-                method.setAccessible(true);
-                return method.invoke(target, args);
-            } catch (Throwable ignored) {
-                return null;
-            }
-        }
-
-        private static String textToString(Object textObj) {
-            if (textObj instanceof Text text) {
-                return text.getString();
-            }
-            return textObj == null ? "" : textObj.toString();
+        private static boolean reads(long used, int placeholder) {
+            return (used & PresenceTemplate.bit(placeholder)) != 0;
         }
 
         private static String getDimensionName(RegistryKey<World> worldKey) {
@@ -598,11 +585,8 @@ public final class DiscordPresenceService {
             return "Overworld";
         }
 
-        private static String clean(String value) {
-            if (value == null) {
-                return "";
-            }
-            return value.replaceAll("\\s+", " ").trim();
+        static String clean(String value) {
+            return TextFlattener.collapseWhitespace(value);
         }
 
         private static String normalizeDetails(String value) {
@@ -0,0 +1,125 @@
+package dev.akgamerz_790.discordmc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handshakes with several IPC endpoints at once and keeps the first one that answers. Every
+ * probe runs on its own thread; once a winner is picked, or the timeout runs out, the transports
+ * of all other probes are closed, which also unblocks any probe still waiting for a reply.
+ */
+final class EndpointProber {
+    private static final int MAX_REPLY_LENGTH = 65_536;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "DiscordMC-Probe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    record Probe(DiscordIpcClient.Endpoint endpoint, DiscordIpcClient.Transport transport) {
+    }
+
+    /**
+     * Returns the first endpoint that answered the handshake with a frame, or {@code null} if none
+     * did within {@code timeoutMillis}. The caller owns the returned transport.
+     */
+    Probe probe(List<DiscordIpcClient.Endpoint> endpoints, byte[] handshakeFrame, long timeoutMillis) {
+        if (endpoints.isEmpty()) {
+            return null;
+        }
+
+        Round round = new Round();
+        ExecutorCompletionService<Probe> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Probe>> futures = new ArrayList<>(endpoints.size());
+        for (DiscordIpcClient.Endpoint endpoint : endpoints) {
+            futures.add(completion.submit(() -> round.handshake(endpoint, handshakeFrame)));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Probe winner = null;
+        try {
+            for (int pending = futures.size(); pending > 0 && winner == null; pending--) {
+                Future<Probe> done = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    break;
+                }
+                try {
+                    winner = done.get();
+                } catch (ExecutionException ignored) {
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            round.settle(winner);
+            for (Future<Probe> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return winner;
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Bookkeeping for one {@link #probe} call. Transports are registered as soon as they open so
+     * {@link #settle} can close every loser, including probes that finish after the winner.
+     */
+    private static final class Round {
+        private final List<DiscordIpcClient.Transport> open = new ArrayList<>();
+        private boolean settled;
+
+        Probe handshake(DiscordIpcClient.Endpoint endpoint, byte[] handshakeFrame) throws IOException {
+            DiscordIpcClient.Transport transport = endpoint.open();
+            if (!register(transport)) {
+                closeQuietly(transport);
+                throw new IOException("Probe round already settled");
+            }
+
+            transport.write(ByteBuffer.wrap(handshakeFrame));
+            IpcFrameReader reader = new IpcFrameReader(MAX_REPLY_LENGTH);
+            reader.read(transport);
+            if (reader.opcode() != DiscordIpcClient.OP_FRAME && reader.opcode() != DiscordIpcClient.OP_PING) {
+                throw new IOException("Unexpected handshake reply opcode " + reader.opcode());
+            }
+            return new Probe(endpoint, transport);
+        }
+
+        private synchronized boolean register(DiscordIpcClient.Transport transport) {
+            if (settled) {
+                return false;
+            }
+            open.add(transport);
+            return true;
+        }
+
+        synchronized void settle(Probe winner) {
+            settled = true;
+            DiscordIpcClient.Transport kept = winner == null ? null : winner.transport();
+            for (DiscordIpcClient.Transport transport : open) {
+                if (transport != kept) {
+                    closeQuietly(transport);
+                }
+            }
+            open.clear();
+        }
+
+        private static void closeQuietly(DiscordIpcClient.Transport transport) {
+            try {
+                transport.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package dev.akgamerz_790.discordmc;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ServerInfo;
+import net.minecraft.text.Text;
+
+/**
+ * Read-only view of the client state that presence is built from. The compile-time
+ * implementation is picked once at startup; the reflective one is only a fallback for when the
+ * remapped members or the accessor mixin are not available at runtime.
+ */
+interface GameStateReader {
+    Text serverLabel(ServerInfo info);
+
+    Text playerCountLabel(ServerInfo info);
+
+    Text sidebarTitle(MinecraftClient client);
+
+    /**
+     * Mode and map picked out of the sidebar lines by the configured rules.
+     */
+    SidebarParser.Fields sidebarFields(MinecraftClient client);
+
+    Text tabHeader(MinecraftClient client);
+
+    Text tabFooter(MinecraftClient client);
+
+    int onlineTabCount(MinecraftClient client);
+
+    /**
+     * Non-empty colored team sizes joined by {@code v}, such as {@code 4v4}; empty for fewer than two teams.
+     */
+    String teamVariant(MinecraftClient client);
+
+    String ownTeamColor(MinecraftClient client);
+
+    static GameStateReader detect(MinecraftClient client) {
+        try {
+            if (DirectGameStateReader.INSTANCE.isAvailable(client)) {
+                return DirectGameStateReader.INSTANCE;
+            }
+            DiscordMC.LOGGER.warn("Player list accessor is not applied, falling back to reflective game state access.");
+        } catch (LinkageError e) {
+            DiscordMC.LOGGER.warn("Game state members did not link ({}), falling back to reflective access.", e.toString());
+        }
+        return ReflectiveGameStateReader.INSTANCE;
+    }
+}
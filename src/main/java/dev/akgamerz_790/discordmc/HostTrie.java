@@ -0,0 +1,135 @@
+package dev.akgamerz_790.discordmc;
+
+/**
+ * Maps domains to values by their labels, last label first, so {@code mc.hypixel.net} walks
+ * {@code net -> hypixel -> mc} and matches the deepest domain that has a value. Lookups hash and
+ * compare labels in place inside the host string and never allocate.
+ */
+final class HostTrie<V> {
+    private final Node<V> root = new Node<>();
+    private int size;
+
+    /**
+     * Associates {@code domain} and all of its subdomains with {@code value}, replacing any value
+     * the exact domain had before.
+     */
+    void put(String domain, V value) {
+        Node<V> node = root;
+        int end = domain.length();
+        while (end > 0) {
+            int start = domain.lastIndexOf('.', end - 1) + 1;
+            if (start < end) {
+                node = node.getOrAdd(domain.substring(start, end));
+            }
+            end = start - 1;
+        }
+        if (node != root) {
+            if (node.value == null) {
+                size++;
+            }
+            node.value = value;
+        }
+    }
+
+    /**
+     * The value of the longest registered suffix of {@code host} that ends on a label boundary,
+     * or {@code null}.
+     */
+    V find(String host) {
+        V best = null;
+        Node<V> node = root;
+        int end = host.length();
+        if (end > 0 && host.charAt(end - 1) == '.') {
+            end--;
+        }
+        while (end > 0) {
+            int start = host.lastIndexOf('.', end - 1) + 1;
+            node = node.get(host, start, end);
+            if (node == null) {
+                break;
+            }
+            if (node.value != null) {
+                best = node.value;
+            }
+            end = start - 1;
+        }
+        return best;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Children live in a small open-addressing table keyed by label, so a lookup can probe with
+     * the hash of a region of the host instead of a substring.
+     */
+    private static final class Node<V> {
+        private String[] labels;
+        private Node<V>[] children;
+        private int childCount;
+        private V value;
+
+        Node<V> get(String host, int start, int end) {
+            if (childCount == 0) {
+                return null;
+            }
+            int length = end - start;
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + host.charAt(i);
+            }
+            int mask = labels.length - 1;
+            for (int slot = spread(hash) & mask; labels[slot] != null; slot = (slot + 1) & mask) {
+                String label = labels[slot];
+                if (label.length() == length && label.hashCode() == hash && label.regionMatches(0, host, start, length)) {
+                    return children[slot];
+                }
+            }
+            return null;
+        }
+
+        Node<V> getOrAdd(String label) {
+            Node<V> existing = get(label, 0, label.length());
+            if (existing != null) {
+                return existing;
+            }
+            if (labels == null || (childCount + 1) * 2 > labels.length) {
+                resize(labels == null ? 2 : labels.length * 2);
+            }
+            Node<V> child = new Node<>();
+            insert(label, child);
+            childCount++;
+            return child;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void resize(int capacity) {
+            String[] oldLabels = labels;
+            Node<V>[] oldChildren = children;
+            labels = new String[capacity];
+            children = (Node<V>[]) new Node<?>[capacity];
+            if (oldLabels != null) {
+                for (int i = 0; i < oldLabels.length; i++) {
+                    if (oldLabels[i] != null) {
+                        insert(oldLabels[i], oldChildren[i]);
+                    }
+                }
+            }
+        }
+
+        private void insert(String label, Node<V> child) {
+            int mask = labels.length - 1;
+            int slot = spread(label.hashCode()) & mask;
+            while (labels[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            labels[slot] = label;
+            children[slot] = child;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
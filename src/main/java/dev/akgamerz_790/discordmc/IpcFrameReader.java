@@ -0,0 +1,244 @@
+package dev.akgamerz_790.discordmc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads IPC frames into one pooled direct buffer and exposes the top-level {@code evt},
+ * {@code cmd} and {@code nonce} string fields by scanning the raw bytes on demand. Nothing is
+ * decoded into a {@code String} unless a caller actually asks for it, so READY and ack frames
+ * cost no allocations.
+ */
+final class IpcFrameReader {
+    private static final int INITIAL_CAPACITY = 4096;
+    private static final byte[] EVT = {'e', 'v', 't'};
+    private static final byte[] CMD = {'c', 'm', 'd'};
+    private static final byte[] NONCE = {'n', 'o', 'n', 'c', 'e'};
+
+    private final int maxPayloadLength;
+    private final ByteBuffer header = ByteBuffer.allocateDirect(IpcFrameWriter.HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+    private ByteBuffer payload = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+    private int opcode;
+    private boolean scanned;
+    private int evtStart;
+    private int evtEnd;
+    private int cmdStart;
+    private int cmdEnd;
+    private int nonceStart;
+    private int nonceEnd;
+
+    IpcFrameReader(int maxPayloadLength) {
+        this.maxPayloadLength = maxPayloadLength;
+    }
+
+    void read(DiscordIpcClient.Transport transport) throws IOException {
+        header.clear();
+        transport.read(header);
+        opcode = header.getInt(0);
+        int length = header.getInt(4);
+        if (length < 0 || length > maxPayloadLength) {
+            throw new IOException("Invalid Discord IPC frame length: " + length);
+        }
+
+        if (payload.capacity() < length) {
+            payload = ByteBuffer.allocateDirect(Math.min(maxPayloadLength, Math.max(length, payload.capacity() * 2)));
+        }
+        payload.clear().limit(length);
+        transport.read(payload);
+        payload.flip();
+        scanned = false;
+    }
+
+    int opcode() {
+        return opcode;
+    }
+
+    /**
+     * The payload of the current frame. The buffer is reused by the next {@link #read}.
+     */
+    ByteBuffer payload() {
+        return payload;
+    }
+
+    boolean eventEquals(byte[] value) {
+        scan();
+        return rangeEquals(evtStart, evtEnd, value);
+    }
+
+    boolean commandEquals(byte[] value) {
+        scan();
+        return rangeEquals(cmdStart, cmdEnd, value);
+    }
+
+    String nonce() {
+        scan();
+        return nonceStart < 0 ? null : decode(nonceStart, nonceEnd);
+    }
+
+    /**
+     * The {@code nonce} field read as a positive decimal number, or {@code -1} if it is missing
+     * or not one of the counter nonces this client sends.
+     */
+    long nonceNumber() {
+        scan();
+        if (nonceStart < 0 || nonceEnd <= nonceStart || nonceEnd - nonceStart > 18) {
+            return -1L;
+        }
+        long value = 0L;
+        for (int i = nonceStart; i < nonceEnd; i++) {
+            byte b = payload.get(i);
+            if (b < '0' || b > '9') {
+                return -1L;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    String payloadString() {
+        return decode(0, payload.limit());
+    }
+
+    private void scan() {
+        if (scanned) {
+            return;
+        }
+        scanned = true;
+        evtStart = -1;
+        cmdStart = -1;
+        nonceStart = -1;
+
+        int limit = payload.limit();
+        int i = skipWhitespace(0);
+        if (i >= limit || payload.get(i) != '{') {
+            return;
+        }
+        i++;
+        while (true) {
+            i = skipWhitespace(i);
+            if (i >= limit) {
+                return;
+            }
+            byte b = payload.get(i);
+            if (b == ',') {
+                i++;
+                continue;
+            }
+            if (b != '"') {
+                return;
+            }
+
+            int keyEnd = skipString(i);
+            if (keyEnd < 0) {
+                return;
+            }
+            int keyStart = i + 1;
+            i = skipWhitespace(keyEnd + 1);
+            if (i >= limit || payload.get(i) != ':') {
+                return;
+            }
+            i = skipWhitespace(i + 1);
+            int valueStart = i;
+            int valueEnd = skipValue(i);
+            if (valueEnd < 0) {
+                return;
+            }
+
+            if (payload.get(valueStart) == '"') {
+                if (rangeEquals(keyStart, keyEnd, EVT)) {
+                    evtStart = valueStart + 1;
+                    evtEnd = valueEnd - 1;
+                } else if (rangeEquals(keyStart, keyEnd, CMD)) {
+                    cmdStart = valueStart + 1;
+                    cmdEnd = valueEnd - 1;
+                } else if (rangeEquals(keyStart, keyEnd, NONCE)) {
+                    nonceStart = valueStart + 1;
+                    nonceEnd = valueEnd - 1;
+                }
+            }
+            i = valueEnd;
+        }
+    }
+
+    // Returns the index of the closing quote of the string opening at start, or -1.
+    private int skipString(int start) {
+        int limit = payload.limit();
+        for (int i = start + 1; i < limit; i++) {
+            byte b = payload.get(i);
+            if (b == '\\') {
+                i++;
+            } else if (b == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Returns the index just past the value starting at start, or -1.
+    private int skipValue(int start) {
+        int limit = payload.limit();
+        if (start >= limit) {
+            return -1;
+        }
+        byte first = payload.get(start);
+        if (first == '"') {
+            int end = skipString(start);
+            return end < 0 ? -1 : end + 1;
+        }
+
+        int depth = 0;
+        for (int i = start; i < limit; i++) {
+            byte b = payload.get(i);
+            if (b == '"') {
+                i = skipString(i);
+                if (i < 0) {
+                    return -1;
+                }
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                if (depth == 0) {
+                    return i;
+                }
+                if (--depth == 0) {
+                    return i + 1;
+                }
+            } else if (depth == 0 && (b == ',' || isWhitespace(b))) {
+                return i;
+            }
+        }
+        return depth == 0 ? limit : -1;
+    }
+
+    private int skipWhitespace(int index) {
+        int limit = payload.limit();
+        while (index < limit && isWhitespace(payload.get(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private boolean rangeEquals(int start, int end, byte[] value) {
+        if (start < 0 || end - start != value.length) {
+            return false;
+        }
+        for (int i = 0; i < value.length; i++) {
+            if (payload.get(start + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        payload.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+}
@@ -0,0 +1,170 @@
+package dev.akgamerz_790.discordmc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Builds IPC frames in place in one reusable direct buffer: the 8-byte header is reserved up
+ * front, the payload is UTF-8 encoded straight after it, and the length is patched in when the
+ * frame is finished. The buffer only grows, so steady-state frames allocate nothing.
+ */
+final class IpcFrameWriter {
+    static final int HEADER_LENGTH = 8;
+    private static final int INITIAL_CAPACITY = 2048;
+
+    private final int maxPayloadLength;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_CAPACITY).order(ByteOrder.LITTLE_ENDIAN);
+
+    IpcFrameWriter(int maxPayloadLength) {
+        this.maxPayloadLength = maxPayloadLength;
+    }
+
+    IpcFrameWriter begin(int opcode) {
+        buffer.clear();
+        buffer.putInt(opcode);
+        buffer.putInt(0);
+        return this;
+    }
+
+    IpcFrameWriter put(byte[] bytes) {
+        ensureRemaining(bytes.length);
+        buffer.put(bytes);
+        return this;
+    }
+
+    IpcFrameWriter put(ByteBuffer bytes) {
+        int length = bytes.remaining();
+        ensureRemaining(length);
+        buffer.put(buffer.position(), bytes, bytes.position(), length);
+        buffer.position(buffer.position() + length);
+        return this;
+    }
+
+    IpcFrameWriter putByte(int value) {
+        ensureRemaining(1);
+        buffer.put((byte) value);
+        return this;
+    }
+
+    IpcFrameWriter putUtf8(CharSequence value) {
+        if (value == null) {
+            return this;
+        }
+        ensureRemaining(value.length() * 3);
+        encodeUtf8(value, 0, value.length());
+        return this;
+    }
+
+    /**
+     * Writes a quoted JSON string, escaped exactly like Gson's {@code JsonWriter} with HTML-safe
+     * mode off, so encoded payloads match {@code JsonObject.toString()} byte for byte.
+     */
+    IpcFrameWriter putJsonString(CharSequence value) {
+        int length = value.length();
+        ensureRemaining(length * 6 + 2);
+        buffer.put((byte) '"');
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') {
+                continue;
+            }
+            encodeUtf8(value, start, i);
+            switch (c) {
+                case '"' -> putEscape('"');
+                case '\\' -> putEscape('\\');
+                case '\t' -> putEscape('t');
+                case '\b' -> putEscape('b');
+                case '\n' -> putEscape('n');
+                case '\r' -> putEscape('r');
+                case '\f' -> putEscape('f');
+                default -> {
+                    putEscape('u');
+                    for (int shift = 12; shift >= 0; shift -= 4) {
+                        buffer.put((byte) Character.forDigit((c >> shift) & 0xF, 16));
+                    }
+                }
+            }
+            start = i + 1;
+        }
+        encodeUtf8(value, start, length);
+        buffer.put((byte) '"');
+        return this;
+    }
+
+    IpcFrameWriter putLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            return putUtf8(Long.toString(value));
+        }
+        ensureRemaining(20);
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        int end = buffer.position() + digits;
+        for (int index = end - 1; index >= buffer.position(); index--) {
+            buffer.put(index, (byte) ('0' + (value % 10)));
+            value /= 10;
+        }
+        buffer.position(end);
+        return this;
+    }
+
+    /**
+     * Patches the payload length into the header and returns the frame, flipped for writing.
+     */
+    ByteBuffer finish() throws IOException {
+        int payloadLength = buffer.position() - HEADER_LENGTH;
+        if (payloadLength > maxPayloadLength) {
+            throw new IOException("Discord IPC frame too large: " + payloadLength);
+        }
+        buffer.putInt(4, payloadLength);
+        buffer.flip();
+        return buffer;
+    }
+
+    private void encodeUtf8(CharSequence value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                // Same replacement String.getBytes(UTF_8) uses for a lone surrogate.
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private void putEscape(char escaped) {
+        buffer.put((byte) '\\').put((byte) escaped);
+    }
+
+    private void ensureRemaining(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        int required = buffer.position() + bytes;
+        ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(required, buffer.capacity() * 2)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+}
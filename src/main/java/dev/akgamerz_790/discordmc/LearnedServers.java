@@ -0,0 +1,166 @@
+package dev.akgamerz_790.discordmc;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What earlier sessions worked out about servers, kept in {@code config/discordmc-learned.json}:
+ * the network name and icon a host resolved to, the {@link ServerRegistry#version() registry
+ * version} it was resolved against, its favicon fingerprint, and the last game mode seen on it. The file is read on the first multiplayer lookup and written back in batches on a
+ * background thread. Only the most recently seen {@link #MAX_ENTRIES} hosts are kept.
+ */
+final class LearnedServers {
+    static final String FILE_NAME = "discordmc-learned.json";
+    private static final int MAX_ENTRIES = 256;
+    private static final long WRITE_DELAY_MILLIS = 5_000L;
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private final Path file;
+    private final DebouncedWriter writer;
+    // Access-ordered, so iteration starts at the host seen longest ago.
+    private final LinkedHashMap<String, Server> byHost = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, String> hostByFavicon = new HashMap<>();
+    private boolean loaded;
+
+    record Server(String name, String icon, long favicon, long registry, String mode, long lastSeen) {
+    }
+
+    LearnedServers(Path file) {
+        this.file = file;
+        this.writer = new DebouncedWriter(file, this::serialize, WRITE_DELAY_MILLIS);
+    }
+
+    /**
+     * The server learned for {@code host}, or else for a host that showed the same favicon.
+     */
+    synchronized Server find(String host, long faviconHash) {
+        load();
+        Server server = host.isEmpty() ? null : byHost.get(host);
+        if (server == null && faviconHash != 0L) {
+            String sameFavicon = hostByFavicon.get(faviconHash);
+            server = sameFavicon == null ? null : byHost.get(sameFavicon);
+        }
+        return server;
+    }
+
+    synchronized void learn(String host, long faviconHash, String name, String icon, long registryVersion) {
+        if (host.isEmpty()) {
+            return;
+        }
+        load();
+        Server previous = byHost.get(host);
+        String mode = previous == null ? "" : previous.mode();
+        if (previous != null && previous.name().equals(name) && previous.icon().equals(icon) && previous.favicon() == faviconHash
+            && previous.registry() == registryVersion) {
+            return;
+        }
+        put(host, new Server(name, icon, faviconHash, registryVersion, mode, System.currentTimeMillis()));
+    }
+
+    synchronized void recordMode(String host, String mode) {
+        if (host.isEmpty()) {
+            return;
+        }
+        load();
+        Server previous = byHost.get(host);
+        if (previous != null && previous.mode().equals(mode)) {
+            return;
+        }
+        put(host, previous == null
+            ? new Server("", "", 0L, 0L, mode, System.currentTimeMillis())
+            : new Server(previous.name(), previous.icon(), previous.favicon(), previous.registry(), mode, System.currentTimeMillis()));
+    }
+
+    void flush() {
+        writer.flush();
+    }
+
+    /**
+     * 64-bit FNV-1a of the favicon bytes, or 0 when there is no favicon.
+     */
+    static long faviconHash(byte[] favicon) {
+        if (favicon == null || favicon.length == 0) {
+            return 0L;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : favicon) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0L ? 1L : hash;
+    }
+
+    private void put(String host, Server server) {
+        byHost.put(host, server);
+        if (server.favicon() != 0L) {
+            hostByFavicon.put(server.favicon(), host);
+        }
+        while (byHost.size() > MAX_ENTRIES) {
+            Map.Entry<String, Server> eldest = byHost.entrySet().iterator().next();
+            byHost.remove(eldest.getKey());
+            hostByFavicon.remove(eldest.getValue().favicon(), eldest.getKey());
+        }
+        writer.markDirty();
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Stored stored = GSON.fromJson(reader, Stored.class);
+            if (stored == null || stored.servers == null) {
+                return;
+            }
+            List<Map.Entry<String, Server>> entries = new ArrayList<>(stored.servers.entrySet());
+            entries.sort(Comparator.comparingLong(entry -> entry.getValue() == null ? 0L : entry.getValue().lastSeen()));
+            for (Map.Entry<String, Server> entry : entries) {
+                Server server = entry.getValue();
+                if (entry.getKey() == null || server == null) {
+                    continue;
+                }
+                byHost.put(entry.getKey(), new Server(
+                    server.name() == null ? "" : server.name(),
+                    server.icon() == null ? "" : server.icon(),
+                    server.favicon(),
+                    server.registry(),
+                    server.mode() == null ? "" : server.mode(),
+                    server.lastSeen()
+                ));
+                if (server.favicon() != 0L) {
+                    hostByFavicon.put(server.favicon(), entry.getKey());
+                }
+            }
+        } catch (IOException | JsonParseException e) {
+            DiscordMC.LOGGER.warn("Ignoring unreadable {}.", FILE_NAME, e);
+        }
+    }
+
+    private synchronized String serialize() {
+        Stored stored = new Stored();
+        stored.servers = new LinkedHashMap<>(byHost);
+        return GSON.toJson(stored);
+    }
+
+    private static final class Stored {
+        Map<String, Server> servers;
+    }
+}
@@ -0,0 +1,104 @@
+package dev.akgamerz_790.discordmc;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves reflective members once per (class, member, signature) and keeps the resulting
+ * {@link MethodHandle}, adapted to an all-{@code Object} type so callers can use
+ * {@code invokeExact}. Failed lookups are cached too, so a member that does not exist under the
+ * current mappings costs a map hit instead of a thrown and swallowed exception.
+ */
+final class MethodHandleCache {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodHandle MISSING = MethodHandles.zero(Object.class);
+    private static final Object MISSING_VALUE = new Object();
+
+    private static final ClassValue<Map<Signature, MethodHandle>> HANDLES = new ClassValue<>() {
+        @Override
+        protected Map<Signature, MethodHandle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    private static final Map<String, Object> STATIC_VALUES = new ConcurrentHashMap<>();
+
+    private MethodHandleCache() {
+    }
+
+    /**
+     * Returns a {@code (Object)Object} handle for the public no-arg method, or {@code null}.
+     */
+    static MethodHandle method(Class<?> owner, String name) {
+        return lookup(owner, new Signature(Kind.METHOD, name, null));
+    }
+
+    /**
+     * Returns a {@code (Object,Object)Object} handle for the public one-arg method, or {@code null}.
+     */
+    static MethodHandle method(Class<?> owner, String name, Class<?> parameterType) {
+        return lookup(owner, new Signature(Kind.METHOD, name, parameterType));
+    }
+
+    /**
+     * Returns a {@code (Object)Object} getter for a field declared on {@code owner}, or {@code null}.
+     */
+    static MethodHandle getter(Class<?> owner, String name) {
+        return lookup(owner, new Signature(Kind.GETTER, name, null));
+    }
+
+    /**
+     * Returns the value of a public static field, or {@code null} if the class or field is missing.
+     */
+    static Object staticValue(String className, String fieldName) {
+        Object value = STATIC_VALUES.computeIfAbsent(className + '#' + fieldName, key -> {
+            try {
+                Object resolved = Class.forName(className).getField(fieldName).get(null);
+                return resolved == null ? MISSING_VALUE : resolved;
+            } catch (Throwable ignored) {
+                return MISSING_VALUE;
+            }
+        });
+        return value == MISSING_VALUE ? null : value;
+    }
+
+    private static MethodHandle lookup(Class<?> owner, Signature signature) {
+        MethodHandle handle = HANDLES.get(owner).computeIfAbsent(signature, key -> resolve(owner, key));
+        return handle == MISSING ? null : handle;
+    }
+
+    private static MethodHandle resolve(Class<?> owner, Signature signature) {
+        try {
+            MethodHandle handle;
+            if (signature.kind == Kind.GETTER) {
+                Field field = owner.getDeclaredField(signature.name);
+                field.setAccessible(true);
+                handle = LOOKUP.unreflectGetter(field);
+            } else if (signature.parameterType == null) {
+                Method method = owner.getMethod(signature.name);
+                method.setAccessible(true);
+                handle = LOOKUP.unreflect(method);
+            } else {
+                Method method = owner.getMethod(signature.name, signature.parameterType);
+                method.setAccessible(true);
+                handle = LOOKUP.unreflect(method);
+            }
+            int arity = signature.parameterType == null ? 1 : 2;
+            return handle.asType(MethodType.genericMethodType(arity));
+        } catch (Throwable ignored) {
+            return MISSING;
+        }
+    }
+
+    private enum Kind {
+        METHOD,
+        GETTER
+    }
+
+    private record Signature(Kind kind, String name, Class<?> parameterType) {
+    }
+}
@@ -0,0 +1,233 @@
+package dev.akgamerz_790.discordmc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds which known network a MOTD names, in one pass over the raw MOTD. Formatting codes
+ * ({@code \u00A7x}) and bracketed tags like {@code [1.8-1.21]} are skipped, {@code |} and runs of
+ * whitespace are fed as one space, and every remaining character advances an Aho-Corasick
+ * automaton built once from all registry keywords. Matching is case-insensitive; when several
+ * keywords occur, the one registered with the lowest priority wins regardless of position.
+ */
+final class MotdMatcher<V> {
+    private static final char FORMATTING_PREFIX = '\u00A7';
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+
+    // Node 0 is the root. Transitions are sorted by character for binary search.
+    private final char[][] keys;
+    private final int[][] targets;
+    private final int[] fail;
+    private final int[] bestPriority;
+    private final List<V> values;
+
+    private MotdMatcher(char[][] keys, int[][] targets, int[] fail, int[] bestPriority, List<V> values) {
+        this.keys = keys;
+        this.targets = targets;
+        this.fail = fail;
+        this.bestPriority = bestPriority;
+        this.values = values;
+    }
+
+    /**
+     * The value of the highest-priority keyword found in {@code motd}, or {@code null}.
+     */
+    V match(String motd) {
+        if (motd == null || values.isEmpty()) {
+            return null;
+        }
+
+        int state = 0;
+        int best = NO_MATCH;
+        boolean pendingSpace = false;
+        boolean started = false;
+        int length = motd.length();
+        for (int i = 0; i < length; i++) {
+            char c = motd.charAt(i);
+            if (isFormattingCode(motd, i)) {
+                i++;
+                continue;
+            }
+            if (c == '[') {
+                int close = closingBracket(motd, i);
+                if (close > 0) {
+                    pendingSpace = started;
+                    i = close;
+                    continue;
+                }
+            }
+            if (c == '|' || isWhitespace(c)) {
+                pendingSpace = started;
+                continue;
+            }
+
+            if (pendingSpace) {
+                pendingSpace = false;
+                state = step(state, ' ');
+                best = Math.min(best, bestPriority[state]);
+            }
+            started = true;
+            state = step(state, Character.toLowerCase(c));
+            best = Math.min(best, bestPriority[state]);
+        }
+        return best == NO_MATCH ? null : values.get(best);
+    }
+
+    private int step(int state, char c) {
+        while (true) {
+            int index = Arrays.binarySearch(keys[state], c);
+            if (index >= 0) {
+                return targets[state][index];
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = fail[state];
+        }
+    }
+
+    /**
+     * Index of the {@code ]} closing a non-empty tag opened at {@code open}, or -1. Formatting
+     * codes inside the tag do not count as content, and a {@code \u00A7]} does not close it.
+     */
+    private static int closingBracket(String motd, int open) {
+        int content = 0;
+        for (int i = open + 1; i < motd.length(); i++) {
+            char c = motd.charAt(i);
+            if (isFormattingCode(motd, i)) {
+                i++;
+            } else if (c == ']') {
+                return content > 0 ? i : -1;
+            } else {
+                content++;
+            }
+        }
+        return -1;
+    }
+
+    // Matches the old "\u00A7." regex, whose dot does not consume a line terminator.
+    private static boolean isFormattingCode(String motd, int index) {
+        if (motd.charAt(index) != FORMATTING_PREFIX || index + 1 >= motd.length()) {
+            return false;
+        }
+        char next = motd.charAt(index + 1);
+        return next != '\n' && next != '\r' && next != '\u0085' && next != '\u2028' && next != '\u2029';
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Normalizes a keyword the same way {@link #match} normalizes MOTD text.
+     */
+    static String normalize(String keyword) {
+        StringBuilder out = new StringBuilder(keyword.length());
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            if (c == '|' || isWhitespace(c)) {
+                if (!out.isEmpty() && out.charAt(out.length() - 1) != ' ') {
+                    out.append(' ');
+                }
+            } else {
+                out.append(Character.toLowerCase(c));
+            }
+        }
+        int end = out.length();
+        if (end > 0 && out.charAt(end - 1) == ' ') {
+            out.setLength(end - 1);
+        }
+        return out.toString();
+    }
+
+    static final class Builder<V> {
+        private final List<List<Character>> edgeKeys = new ArrayList<>();
+        private final List<List<Integer>> edgeTargets = new ArrayList<>();
+        private final List<Integer> output = new ArrayList<>();
+        private final List<V> values = new ArrayList<>();
+
+        Builder() {
+            addNode();
+        }
+
+        /**
+         * Adds a keyword; keywords added earlier take priority over later ones.
+         */
+        Builder<V> add(String keyword, V value) {
+            String normalized = normalize(keyword);
+            if (normalized.isEmpty()) {
+                return this;
+            }
+            int priority = values.size();
+            values.add(value);
+
+            int node = 0;
+            for (int i = 0; i < normalized.length(); i++) {
+                char c = normalized.charAt(i);
+                int index = edgeKeys.get(node).indexOf(c);
+                if (index >= 0) {
+                    node = edgeTargets.get(node).get(index);
+                } else {
+                    int child = addNode();
+                    edgeKeys.get(node).add(c);
+                    edgeTargets.get(node).add(child);
+                    node = child;
+                }
+            }
+            output.set(node, Math.min(output.get(node), priority));
+            return this;
+        }
+
+        MotdMatcher<V> build() {
+            int count = edgeKeys.size();
+            char[][] keys = new char[count][];
+            int[][] targets = new int[count][];
+            for (int node = 0; node < count; node++) {
+                List<Character> nodeKeys = edgeKeys.get(node);
+                List<Integer> nodeTargets = edgeTargets.get(node);
+                Integer[] order = new Integer[nodeKeys.size()];
+                for (int i = 0; i < order.length; i++) {
+                    order[i] = i;
+                }
+                Arrays.sort(order, (a, b) -> Character.compare(nodeKeys.get(a), nodeKeys.get(b)));
+                keys[node] = new char[order.length];
+                targets[node] = new int[order.length];
+                for (int i = 0; i < order.length; i++) {
+                    keys[node][i] = nodeKeys.get(order[i]);
+                    targets[node][i] = nodeTargets.get(order[i]);
+                }
+            }
+
+            int[] fail = new int[count];
+            int[] best = new int[count];
+            for (int node = 0; node < count; node++) {
+                best[node] = output.get(node);
+            }
+            MotdMatcher<V> partial = new MotdMatcher<>(keys, targets, fail, best, values);
+            // Breadth-first, so every failure target is final before its children are visited.
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            for (int child : targets[0]) {
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                for (int i = 0; i < keys[node].length; i++) {
+                    int child = targets[node][i];
+                    fail[child] = node == 0 ? 0 : partial.step(fail[node], keys[node][i]);
+                    best[child] = Math.min(best[child], best[fail[child]]);
+                    queue.add(child);
+                }
+            }
+            return partial;
+        }
+
+        private int addNode() {
+            edgeKeys.add(new ArrayList<>());
+            edgeTargets.add(new ArrayList<>());
+            output.add(NO_MATCH);
+            return edgeKeys.size() - 1;
+        }
+    }
+}
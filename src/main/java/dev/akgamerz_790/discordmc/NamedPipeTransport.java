@@ -0,0 +1,69 @@
+package dev.akgamerz_790.discordmc;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+final class NamedPipeTransport implements DiscordIpcClient.Transport {
+    // A pipe opened through RandomAccessFile cannot be selected on, so waiting for input polls.
+    private static final long WAIT_STEP_MILLIS = 10L;
+
+    private final RandomAccessFile pipe;
+    private final FileChannel channel;
+
+    private NamedPipeTransport(RandomAccessFile pipe) {
+        this.pipe = pipe;
+        this.channel = pipe.getChannel();
+    }
+
+    static NamedPipeTransport open(String path) throws IOException {
+        return new NamedPipeTransport(new RandomAccessFile(path, "rw"));
+    }
+
+    @Override
+    public int available() throws IOException {
+        long available = pipe.length() - pipe.getFilePointer();
+        return (int) Math.max(0L, Math.min(Integer.MAX_VALUE, available));
+    }
+
+    @Override
+    public void read(ByteBuffer dst) throws IOException {
+        while (dst.hasRemaining()) {
+            if (channel.read(dst) < 0) {
+                throw new EOFException("Discord IPC stream ended");
+            }
+        }
+    }
+
+    @Override
+    public void write(ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            channel.write(src);
+        }
+    }
+
+    @Override
+    public boolean awaitReadable(long timeoutMillis) throws IOException {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        while (available() == 0) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            try {
+                Thread.sleep(WAIT_STEP_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for Discord IPC");
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        pipe.close();
+    }
+}
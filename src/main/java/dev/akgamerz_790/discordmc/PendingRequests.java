@@ -0,0 +1,128 @@
+package dev.akgamerz_790.discordmc;
+
+import java.util.Arrays;
+
+/**
+ * Commands sent to Discord that are still waiting for their response frame. Nonces are handed out
+ * by a counter, so the table is a ring indexed by the low bits of the nonce: recording and
+ * completing a request are array stores, and a request that outlives {@link #CAPACITY} newer ones
+ * or the ack timeout is counted as dropped. Round trip times go to {@link PresenceMetrics#ACK}.
+ * Not thread-safe; {@link DiscordIpcClient} guards every change. The counters and the size are
+ * volatile so {@link #stats()} and {@link #size()} can be read without that lock.
+ */
+final class PendingRequests {
+    static final int CAPACITY = 64;
+    private static final int MASK = CAPACITY - 1;
+    private static final long ACK_TIMEOUT_NANOS = 10_000_000_000L;
+
+    private final long[] nonces = new long[CAPACITY];
+    private final long[] sentNanos = new long[CAPACITY];
+    private final DiscordIpcClient.Activity[] activities = new DiscordIpcClient.Activity[CAPACITY];
+    private long nextNonce = 1;
+    private volatile int size;
+
+    private volatile long acked;
+    private volatile long rejected;
+    private volatile long dropped;
+    private volatile long abandoned;
+
+    /**
+     * Records a request about to be written and returns its nonce.
+     */
+    long add(DiscordIpcClient.Activity activity, long nowNanos) {
+        long nonce = nextNonce++;
+        int slot = (int) (nonce & MASK);
+        if (nonces[slot] != 0) {
+            dropped++;
+        } else {
+            size++;
+        }
+        nonces[slot] = nonce;
+        sentNanos[slot] = nowNanos;
+        activities[slot] = activity;
+        return nonce;
+    }
+
+    /**
+     * Completes the request with the given nonce as accepted. Returns {@code false} if nothing
+     * was waiting for it.
+     */
+    boolean ack(long nonce, long nowNanos) {
+        int slot = find(nonce);
+        if (slot < 0) {
+            return false;
+        }
+        acked++;
+        PresenceMetrics.ACK.record(nowNanos - sentNanos[slot]);
+        remove(slot);
+        return true;
+    }
+
+    /**
+     * Completes the request with the given nonce as rejected and returns its activity, or
+     * {@code null} if nothing was waiting for it.
+     */
+    DiscordIpcClient.Activity reject(long nonce) {
+        int slot = find(nonce);
+        if (slot < 0) {
+            return null;
+        }
+        DiscordIpcClient.Activity activity = activities[slot];
+        rejected++;
+        remove(slot);
+        return activity;
+    }
+
+    /**
+     * Counts requests without a response after the ack timeout as dropped.
+     */
+    void expire(long nowNanos) {
+        if (size == 0) {
+            return;
+        }
+        for (int slot = 0; slot < CAPACITY; slot++) {
+            if (nonces[slot] != 0 && nowNanos - sentNanos[slot] > ACK_TIMEOUT_NANOS) {
+                dropped++;
+                remove(slot);
+            }
+        }
+    }
+
+    /**
+     * Empties the table for a connection being closed or opened, counting what was still waiting
+     * as abandoned, and starts the nonces over. Responses to the old connection's nonces cannot
+     * arrive on a new one.
+     */
+    void reset() {
+        abandoned += size;
+        Arrays.fill(nonces, 0L);
+        Arrays.fill(activities, null);
+        size = 0;
+        nextNonce = 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    Stats stats() {
+        return new Stats(acked, rejected, dropped, abandoned, size);
+    }
+
+    private int find(long nonce) {
+        if (nonce <= 0) {
+            return -1;
+        }
+        int slot = (int) (nonce & MASK);
+        return nonces[slot] == nonce ? slot : -1;
+    }
+
+    private void remove(int slot) {
+        nonces[slot] = 0;
+        activities[slot] = null;
+        size--;
+    }
+
+    record Stats(long acked, long rejected, long dropped, long abandoned, int pending) {
+    }
+}
@@ -0,0 +1,158 @@
+package dev.akgamerz_790.discordmc;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Single-writer hand-off between the client tick thread and the IPC pipe. The tick thread only
+ * swaps the newest activity into a one-slot mailbox; the writer thread encodes and sends whatever
+ * is there when it wakes up, so activities superseded in the meantime are never sent. The writer
+ * also holds back while the connection is not ready or {@link ActivityRateLimiter} has no token,
+ * letting bursts coalesce into the last state instead of being dropped by Discord.
+ */
+final class PresenceDispatcher {
+    private static final int MAX_RETRIES = 2;
+
+    private final DiscordIpcClient ipcClient;
+    private final BooleanSupplier ready;
+    private final Consumer<IOException> onFailure;
+    private final int rateCapacity;
+    private final long rateWindowNanos;
+    private final AtomicReference<DiscordIpcClient.Activity> mailbox = new AtomicReference<>();
+    private final LongAdder coalesced = new LongAdder();
+    private final AtomicInteger retries = new AtomicInteger();
+    private volatile DiscordIpcClient.Activity lastPublished;
+    private volatile boolean resend;
+    private volatile Thread writerThread;
+
+    PresenceDispatcher(DiscordIpcClient ipcClient, BooleanSupplier ready, Consumer<IOException> onFailure) {
+        this(ipcClient, ready, onFailure, ActivityRateLimiter.DEFAULT_CAPACITY, ActivityRateLimiter.DEFAULT_WINDOW_NANOS);
+    }
+
+    /**
+     * Sends at most {@code rateCapacity} activities per {@code rateWindowNanos}, for the IPC harness.
+     */
+    PresenceDispatcher(DiscordIpcClient ipcClient, BooleanSupplier ready, Consumer<IOException> onFailure, int rateCapacity, long rateWindowNanos) {
+        this.ipcClient = ipcClient;
+        this.ready = ready;
+        this.onFailure = onFailure;
+        this.rateCapacity = rateCapacity;
+        this.rateWindowNanos = rateWindowNanos;
+    }
+
+    void start() {
+        mailbox.set(null);
+        lastPublished = null;
+        Thread thread = new Thread(this::runWriter, "DiscordMC-Writer");
+        thread.setDaemon(true);
+        writerThread = thread;
+        thread.start();
+    }
+
+    /**
+     * Tells the writer to stop and returns without waiting, so a slow or hung pipe never holds up
+     * the caller. A writer already waiting to send re-checks that it is current under the client's
+     * lock and sends nothing, so nothing lands after the connection clears the activity. The
+     * writer is not interrupted, since that would close the interruptible channel under it.
+     */
+    void stop() {
+        Thread thread = writerThread;
+        writerThread = null;
+        mailbox.set(null);
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    void publish(DiscordIpcClient.Activity activity) {
+        lastPublished = activity;
+        retries.set(0);
+        if (mailbox.getAndSet(activity) != null) {
+            coalesced.increment();
+        }
+        wake();
+    }
+
+    /**
+     * Re-sends the newest published activity, for a connection that has just become ready.
+     */
+    void replay() {
+        resend = true;
+        DiscordIpcClient.Activity activity = lastPublished;
+        if (activity != null) {
+            mailbox.compareAndSet(null, activity);
+        }
+        wake();
+    }
+
+    /**
+     * Sends an activity Discord rejected again, unless something newer has been published since
+     * or it has already been retried {@link #MAX_RETRIES} times.
+     */
+    void retry(DiscordIpcClient.Activity activity) {
+        if (activity != lastPublished || retries.incrementAndGet() > MAX_RETRIES) {
+            return;
+        }
+        resend = true;
+        mailbox.compareAndSet(null, activity);
+        wake();
+    }
+
+    private void wake() {
+        Thread thread = writerThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    private void runWriter() {
+        Thread self = Thread.currentThread();
+        BooleanSupplier current = () -> writerThread == self;
+        ActivityRateLimiter limiter = new ActivityRateLimiter(rateCapacity, rateWindowNanos, System.nanoTime());
+        DiscordIpcClient.Activity lastSent = null;
+        while (writerThread == self) {
+            if (resend) {
+                resend = false;
+                lastSent = null;
+            }
+            DiscordIpcClient.Activity pending = mailbox.get();
+            if (pending == null || !ready.getAsBoolean()) {
+                LockSupport.park(this);
+                continue;
+            }
+            if (pending.equals(lastSent)) {
+                mailbox.compareAndSet(pending, null);
+                continue;
+            }
+
+            long waitNanos = limiter.tryAcquire(System.nanoTime());
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(this, waitNanos);
+                continue;
+            }
+
+            DiscordIpcClient.Activity activity = mailbox.getAndSet(null);
+            if (activity == null) {
+                continue;
+            }
+            try {
+                if (ipcClient.setActivity(activity, current)) {
+                    lastSent = activity;
+                }
+            } catch (IOException e) {
+                if (current.getAsBoolean()) {
+                    onFailure.accept(e);
+                }
+            }
+        }
+    }
+}
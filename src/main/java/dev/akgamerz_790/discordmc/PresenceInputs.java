@@ -0,0 +1,36 @@
+package dev.akgamerz_790.discordmc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dirty bits for the inputs a presence snapshot is built from. Fabric events and the network
+ * handler mixin set them as state changes; the tick thread drains them and only rebuilds the
+ * snapshot when something is set.
+ */
+public final class PresenceInputs {
+    public static final int CONNECTION = 1;
+    public static final int WORLD = 1 << 1;
+    public static final int SERVER_INFO = 1 << 2;
+    public static final int SCOREBOARD = 1 << 3;
+    public static final int TEAMS = 1 << 4;
+    public static final int PLAYER_LIST = 1 << 5;
+    public static final int CONFIG = 1 << 6;
+    public static final int ALL = (1 << 7) - 1;
+
+    private static final AtomicInteger DIRTY = new AtomicInteger(ALL);
+
+    private PresenceInputs() {
+    }
+
+    public static void mark(int inputs) {
+        DIRTY.getAndAccumulate(inputs, (current, added) -> current | added);
+    }
+
+    static boolean isDirty() {
+        return DIRTY.get() != 0;
+    }
+
+    static int drain() {
+        return DIRTY.getAndSet(0);
+    }
+}
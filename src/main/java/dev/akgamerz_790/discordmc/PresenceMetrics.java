@@ -0,0 +1,205 @@
+package dev.akgamerz_790.discordmc;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters and latency histograms for the presence pipeline, recorded from the
+ * client, connection and writer threads. Counts and sums are {@link LongAdder}s and a histogram's
+ * maximum is a {@link LongAccumulator}, so recording never takes a lock. Histograms have fixed
+ * power-of-two nanosecond buckets, and a percentile is reported as the upper bound of the bucket
+ * it falls in.
+ */
+final class PresenceMetrics {
+    static final String FILE_NAME = "discordmc-metrics.json";
+
+    private static final List<Counter> COUNTERS = new ArrayList<>();
+    private static final List<Histogram> HISTOGRAMS = new ArrayList<>();
+
+    static final Counter CAPTURES = counter("captures");
+    static final Counter UNCHANGED_CAPTURES = counter("capturesUnchanged");
+    static final Counter FRAMES_SENT = counter("framesSent");
+    static final Counter BYTES_SENT = counter("bytesSent");
+    static final Counter FRAMES_RECEIVED = counter("framesReceived");
+    static final Counter BYTES_RECEIVED = counter("bytesReceived");
+    static final Counter CONNECTS = counter("connects");
+    static final Counter RECONNECTS = counter("reconnects");
+    static final Counter CONNECT_FAILURES = counter("connectFailures");
+    static final Counter DISCONNECTS = counter("disconnects");
+
+    static final Histogram CAPTURE = histogram("capture");
+    static final Histogram ENCODE = histogram("encode");
+    static final Histogram WRITE = histogram("write");
+    static final Histogram POLL = histogram("poll");
+    static final Histogram ACK = histogram("ack");
+
+    private PresenceMetrics() {
+    }
+
+    private static Counter counter(String name) {
+        Counter counter = new Counter(name);
+        COUNTERS.add(counter);
+        return counter;
+    }
+
+    private static Histogram histogram(String name) {
+        Histogram histogram = new Histogram(name);
+        HISTOGRAMS.add(histogram);
+        return histogram;
+    }
+
+    static void reset() {
+        COUNTERS.forEach(counter -> counter.adder.reset());
+        HISTOGRAMS.forEach(Histogram::reset);
+    }
+
+    /**
+     * One line for the counters and one per histogram that has samples, for chat.
+     */
+    static List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        StringBuilder counters = new StringBuilder();
+        for (Counter counter : COUNTERS) {
+            counters.append(counters.isEmpty() ? "" : ", ").append(counter.name).append('=').append(counter.sum());
+        }
+        lines.add(counters.toString());
+        for (Histogram histogram : HISTOGRAMS) {
+            long count = histogram.count.sum();
+            if (count == 0) {
+                continue;
+            }
+            lines.add(String.format(Locale.ROOT, "%s: n=%d, avg %s, p50 %s, p90 %s, p99 %s, max %s", histogram.name, count,
+                duration(histogram.mean()), duration(histogram.percentile(0.50)), duration(histogram.percentile(0.90)),
+                duration(histogram.percentile(0.99)), duration(histogram.max.get())));
+        }
+        return lines;
+    }
+
+    static String toJson() {
+        JsonObject root = new JsonObject();
+        root.addProperty("timestamp", System.currentTimeMillis());
+        JsonObject counters = new JsonObject();
+        for (Counter counter : COUNTERS) {
+            counters.addProperty(counter.name, counter.sum());
+        }
+        root.add("counters", counters);
+
+        JsonObject histograms = new JsonObject();
+        for (Histogram histogram : HISTOGRAMS) {
+            JsonObject entry = new JsonObject();
+            long count = histogram.count.sum();
+            entry.addProperty("count", count);
+            entry.addProperty("meanNanos", histogram.mean());
+            entry.addProperty("p50Nanos", histogram.percentile(0.50));
+            entry.addProperty("p90Nanos", histogram.percentile(0.90));
+            entry.addProperty("p99Nanos", histogram.percentile(0.99));
+            entry.addProperty("maxNanos", histogram.max.get());
+            // Keyed by each bucket's inclusive upper bound in nanoseconds.
+            JsonObject buckets = new JsonObject();
+            for (int i = 0; i < Histogram.BUCKETS; i++) {
+                long samples = histogram.buckets[i].sum();
+                if (samples > 0) {
+                    buckets.addProperty(Long.toString(Histogram.upperBound(i)), samples);
+                }
+            }
+            entry.add("buckets", buckets);
+            histograms.add(histogram.name, entry);
+        }
+        root.add("histograms", histograms);
+        return new GsonBuilder().setPrettyPrinting().create().toJson(root);
+    }
+
+    static String duration(long nanos) {
+        return nanos < 10_000L ? String.format(Locale.ROOT, "%.1fus", nanos / 1_000.0) : String.format(Locale.ROOT, "%.1fms", nanos / 1_000_000.0);
+    }
+
+    static final class Counter {
+        private final String name;
+        private final LongAdder adder = new LongAdder();
+
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        void increment() {
+            adder.increment();
+        }
+
+        void add(long amount) {
+            adder.add(amount);
+        }
+
+        long sum() {
+            return adder.sum();
+        }
+    }
+
+    static final class Histogram {
+        // Bucket i holds durations of bit length i, so the last one starts at about 4.6 minutes.
+        static final int BUCKETS = 40;
+
+        private final String name;
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+        private Histogram(String name) {
+            this.name = name;
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos) {
+            long value = Math.max(0L, nanos);
+            buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value))].increment();
+            count.increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        long mean() {
+            long total = count.sum();
+            return total == 0 ? 0L : sum.sum() / total;
+        }
+
+        /**
+         * The upper bound of the bucket holding the given quantile, capped at the maximum seen.
+         */
+        long percentile(double quantile) {
+            long total = count.sum();
+            if (total == 0) {
+                return 0L;
+            }
+            long rank = Math.max(1L, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i].sum();
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        static long upperBound(int bucket) {
+            return bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+        }
+
+        private void reset() {
+            for (LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+            count.reset();
+            sum.reset();
+            max.reset();
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package dev.akgamerz_790.discordmc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A details or state line from the config's {@code templates}, compiled once per config into
+ * segments. {@code {name}} is a placeholder. {@code [...]} is a section that only renders when
+ * every placeholder directly inside it has a value; {@code {?name}} requires a value and
+ * {@code {!name}} requires none without rendering anything. A section may list alternatives
+ * separated by {@code ||}, and the first one whose conditions hold renders. A backslash escapes
+ * the next character.
+ */
+final class PresenceTemplate {
+    static final int SERVER = 0;
+    static final int ADDRESS = 1;
+    static final int PLAYERS = 2;
+    static final int MODE = 3;
+    static final int VARIANT = 4;
+    static final int MAP = 5;
+    static final int TEAM = 6;
+    static final int MOTD = 7;
+    static final int MENU = 8;
+    static final int DIMENSION = 9;
+    static final int WORLD = 10;
+    static final int HYPIXEL = 11;
+    static final int SINGLEPLAYER = 12;
+    private static final String[] NAMES = {
+        "server", "address", "players", "mode", "variant", "map", "team", "motd", "menu", "dimension", "world", "hypixel", "singleplayer"
+    };
+    static final int COUNT = NAMES.length;
+
+    private final Segment[] segments;
+    private final long used;
+
+    private interface Segment {
+        void render(Renderer renderer, StringBuilder out);
+    }
+
+    private record Literal(String text) implements Segment {
+        @Override
+        public void render(Renderer renderer, StringBuilder out) {
+            out.append(text);
+        }
+    }
+
+    private record Placeholder(int id) implements Segment {
+        @Override
+        public void render(Renderer renderer, StringBuilder out) {
+            out.append(renderer.values[id]);
+        }
+    }
+
+    private record Alternative(long required, long forbidden, Segment[] body) {
+    }
+
+    private record Section(Alternative[] alternatives) implements Segment {
+        @Override
+        public void render(Renderer renderer, StringBuilder out) {
+            for (Alternative alternative : alternatives) {
+                if ((renderer.present & alternative.required()) == alternative.required() && (renderer.present & alternative.forbidden()) == 0) {
+                    for (Segment segment : alternative.body()) {
+                        segment.render(renderer, out);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * The four templates of one config; any that fails to compile falls back to its default.
+     */
+    record Compiled(PresenceTemplate multiplayerDetails, PresenceTemplate multiplayerState,
+                    PresenceTemplate singleplayerDetails, PresenceTemplate singleplayerState) {
+        static Compiled compile(DiscordMCConfig.Templates configured) {
+            DiscordMCConfig.Templates defaults = new DiscordMCConfig.Templates();
+            DiscordMCConfig.Templates templates = configured == null ? defaults : configured;
+            return new Compiled(
+                compileOrDefault("multiplayerDetails", templates.multiplayerDetails, defaults.multiplayerDetails),
+                compileOrDefault("multiplayerState", templates.multiplayerState, defaults.multiplayerState),
+                compileOrDefault("singleplayerDetails", templates.singleplayerDetails, defaults.singleplayerDetails),
+                compileOrDefault("singleplayerState", templates.singleplayerState, defaults.singleplayerState)
+            );
+        }
+
+        private static PresenceTemplate compileOrDefault(String name, String source, String fallback) {
+            if (source != null) {
+                try {
+                    return PresenceTemplate.compile(source);
+                } catch (IllegalArgumentException e) {
+                    DiscordMC.LOGGER.warn("Ignoring template {} '{}': {}", name, source, e.getMessage());
+                }
+            }
+            return PresenceTemplate.compile(fallback);
+        }
+    }
+
+    private PresenceTemplate(Segment[] segments, long used) {
+        this.segments = segments;
+        this.used = used;
+    }
+
+    static PresenceTemplate compile(String source) {
+        Parser parser = new Parser(source);
+        Alternative top = parser.alternative(false);
+        if (parser.position < source.length()) {
+            throw new IllegalArgumentException("unmatched ']' at " + parser.position);
+        }
+        return new PresenceTemplate(top.body(), parser.used);
+    }
+
+    /**
+     * A bit per placeholder this template reads, so a capture can skip computing the others.
+     */
+    long used() {
+        return used;
+    }
+
+    static long bit(int id) {
+        return 1L << id;
+    }
+
+    private static final class Parser {
+        private final String source;
+        private int position;
+        private long used;
+
+        private Parser(String source) {
+            this.source = source;
+        }
+
+        // Reads up to the end of the input, or in a section up to its '||' or ']'.
+        private Alternative alternative(boolean inSection) {
+            List<Segment> body = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            long required = 0L;
+            long forbidden = 0L;
+            while (position < source.length()) {
+                char c = source.charAt(position);
+                if (c == '\\' && position + 1 < source.length()) {
+                    literal.append(source.charAt(position + 1));
+                    position += 2;
+                } else if (c == '{') {
+                    int end = source.indexOf('}', position);
+                    if (end < 0) {
+                        throw new IllegalArgumentException("unclosed '{' at " + position);
+                    }
+                    String name = source.substring(position + 1, end);
+                    char guard = name.isEmpty() ? 0 : name.charAt(0);
+                    int id = id(guard == '?' || guard == '!' ? name.substring(1) : name);
+                    used |= bit(id);
+                    if (guard == '!') {
+                        forbidden |= bit(id);
+                    } else {
+                        required |= bit(id);
+                    }
+                    if (guard != '?' && guard != '!') {
+                        flush(literal, body);
+                        body.add(new Placeholder(id));
+                    }
+                    position = end + 1;
+                } else if (c == '[') {
+                    position++;
+                    flush(literal, body);
+                    body.add(section());
+                } else if (c == ']' || (inSection && source.startsWith("||", position))) {
+                    break;
+                } else {
+                    literal.append(c);
+                    position++;
+                }
+            }
+            flush(literal, body);
+            // Outside a section placeholders render as they are, empty or not.
+            return new Alternative(inSection ? required : 0L, inSection ? forbidden : 0L, body.toArray(new Segment[0]));
+        }
+
+        private Section section() {
+            int start = position - 1;
+            List<Alternative> alternatives = new ArrayList<>();
+            while (true) {
+                alternatives.add(alternative(true));
+                if (position >= source.length()) {
+                    throw new IllegalArgumentException("unclosed '[' at " + start);
+                }
+                if (source.charAt(position) == ']') {
+                    position++;
+                    return new Section(alternatives.toArray(new Alternative[0]));
+                }
+                position += 2;
+            }
+        }
+
+        private static void flush(StringBuilder literal, List<Segment> body) {
+            if (!literal.isEmpty()) {
+                body.add(new Literal(literal.toString()));
+                literal.setLength(0);
+            }
+        }
+
+        private static int id(String name) {
+            for (int i = 0; i < COUNT; i++) {
+                if (NAMES[i].equals(name)) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("unknown placeholder '{" + name + "}'");
+        }
+    }
+
+    /**
+     * The placeholder values of the current capture and the last line rendered into each slot,
+     * which is returned as is while the template and the values it reads are unchanged. One per
+     * presence service; client thread only.
+     */
+    static final class Renderer {
+        private final String[] values = new String[COUNT];
+        private final int[] versions = new int[COUNT];
+        private final StringBuilder builder = new StringBuilder(64);
+        private final Slot details = new Slot();
+        private final Slot state = new Slot();
+        private long present;
+
+        private static final class Slot {
+            private final int[] seen = new int[COUNT];
+            private PresenceTemplate template;
+            private String rendered;
+        }
+
+        Renderer() {
+            Arrays.fill(values, "");
+        }
+
+        void clear() {
+            for (int id = 0; id < COUNT; id++) {
+                set(id, "");
+            }
+        }
+
+        void set(int id, String value) {
+            String next = value == null ? "" : value;
+            if (next.equals(values[id])) {
+                return;
+            }
+            values[id] = next;
+            versions[id]++;
+            present = next.isEmpty() ? present & ~bit(id) : present | bit(id);
+        }
+
+        String details(PresenceTemplate template) {
+            return render(template, details);
+        }
+
+        String state(PresenceTemplate template) {
+            return render(template, state);
+        }
+
+        private String render(PresenceTemplate template, Slot slot) {
+            if (slot.template == template && unchanged(template.used, slot.seen)) {
+                return slot.rendered;
+            }
+            builder.setLength(0);
+            for (Segment segment : template.segments) {
+                segment.render(this, builder);
+            }
+            slot.template = template;
+            slot.rendered = builder.toString();
+            System.arraycopy(versions, 0, slot.seen, 0, COUNT);
+            return slot.rendered;
+        }
+
+        private boolean unchanged(long used, int[] seen) {
+            for (long remaining = used; remaining != 0; remaining &= remaining - 1) {
+                int id = Long.numberOfTrailingZeros(remaining);
+                if (versions[id] != seen[id]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
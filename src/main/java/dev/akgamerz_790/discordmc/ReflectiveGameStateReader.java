@@ -0,0 +1,211 @@
+package dev.akgamerz_790.discordmc;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ServerInfo;
+import net.minecraft.text.Text;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Reads game state through cached method handles. The walks below the client take plain objects,
+ * so the benchmarks can run them over a stand-in object graph.
+ */
+final class ReflectiveGameStateReader implements GameStateReader {
+    static final ReflectiveGameStateReader INSTANCE = new ReflectiveGameStateReader();
+
+    private ReflectiveGameStateReader() {
+    }
+
+    @Override
+    public Text serverLabel(ServerInfo info) {
+        return textField(ServerInfo.class, info, "label");
+    }
+
+    @Override
+    public Text playerCountLabel(ServerInfo info) {
+        return textField(ServerInfo.class, info, "playerCountLabel");
+    }
+
+    @Override
+    public Text sidebarTitle(MinecraftClient client) {
+        return client.world == null ? null : sidebarTitleOf(client.world);
+    }
+
+    static Text sidebarTitleOf(Object world) {
+        Object scoreboard = invokeNoArg(world, "getScoreboard");
+        if (scoreboard == null) {
+            return null;
+        }
+
+        Object sidebarSlot = MethodHandleCache.staticValue("net.minecraft.scoreboard.ScoreboardDisplaySlot", "SIDEBAR");
+        Object objective = null;
+        if (sidebarSlot != null) {
+            objective = invoke(scoreboard, "getObjectiveForSlot", sidebarSlot.getClass(), sidebarSlot);
+        }
+        if (objective == null) {
+            objective = invoke(scoreboard, "getObjectiveForSlot", int.class, 1);
+        }
+        return asText(invokeNoArg(objective, "getDisplayName"));
+    }
+
+    // Sidebar lines are tracked by the network handler mixin, which this fallback cannot rely on.
+    @Override
+    public SidebarParser.Fields sidebarFields(MinecraftClient client) {
+        return SidebarParser.Fields.EMPTY;
+    }
+
+    @Override
+    public Text tabHeader(MinecraftClient client) {
+        return playerListText(MinecraftClient.class, client, "header");
+    }
+
+    @Override
+    public Text tabFooter(MinecraftClient client) {
+        return playerListText(MinecraftClient.class, client, "footer");
+    }
+
+    @Override
+    public int onlineTabCount(MinecraftClient client) {
+        return onlineTabCountOf(client);
+    }
+
+    static int onlineTabCountOf(Object client) {
+        Object handler = invokeNoArg(client, "getNetworkHandler");
+        if (handler == null) {
+            return -1;
+        }
+        Object playerList = invokeNoArg(handler, "getPlayerList");
+        if (playerList instanceof Collection<?> entries) {
+            return entries.size();
+        }
+        return -1;
+    }
+
+    @Override
+    public String teamVariant(MinecraftClient client) {
+        return client.world == null ? "" : teamVariantOf(client.world);
+    }
+
+    static String teamVariantOf(Object world) {
+        Object scoreboard = invokeNoArg(world, "getScoreboard");
+        Object teamsObj = invokeNoArg(scoreboard, "getTeams");
+        if (!(teamsObj instanceof Iterable<?> iterable)) {
+            return "";
+        }
+
+        StringBuilder variant = new StringBuilder();
+        int teams = 0;
+        for (Object team : iterable) {
+            if (team == null || colorName(invokeNoArg(team, "getColor")).isEmpty()) {
+                continue;
+            }
+            int size = getTeamPlayerCount(team);
+            if (size > 0) {
+                if (teams++ > 0) {
+                    variant.append('v');
+                }
+                variant.append(size);
+            }
+        }
+        return teams < 2 ? "" : variant.toString();
+    }
+
+    @Override
+    public String ownTeamColor(MinecraftClient client) {
+        return client.player == null ? "" : ownTeamColorOf(client.player);
+    }
+
+    static String ownTeamColorOf(Object player) {
+        Object team = invokeNoArg(player, "getScoreboardTeam");
+        if (team == null) {
+            team = invokeNoArg(player, "getTeam");
+        }
+        return colorName(invokeNoArg(team, "getColor"));
+    }
+
+    static Text textField(Class<?> owner, Object target, String fieldName) {
+        return asText(getField(owner, target, fieldName));
+    }
+
+    /**
+     * A field of the player list HUD, reached through the client's {@code inGameHud}.
+     */
+    static Text playerListText(Class<?> clientClass, Object client, String fieldName) {
+        Object hud = getField(clientClass, client, "inGameHud");
+        return asText(getField(null, invokeNoArg(hud, "getPlayerListHud"), fieldName));
+    }
+
+    private static int getTeamPlayerCount(Object team) {
+        Object players = invokeNoArg(team, "getPlayerList");
+        if (players instanceof Collection<?> entries) {
+            return entries.size();
+        }
+        if (players instanceof Iterable<?> iterable) {
+            int count = 0;
+            for (Object ignored : iterable) {
+                count++;
+            }
+            return count;
+        }
+        return -1;
+    }
+
+    private static String colorName(Object color) {
+        if (color == null) {
+            return "";
+        }
+        String name = color instanceof Enum<?> constant ? constant.name() : color.toString().trim().toUpperCase(Locale.ROOT);
+        return name.isEmpty() || "RESET".equals(name) ? "" : name;
+    }
+
+    private static Text asText(Object value) {
+        return value instanceof Text text ? text : null;
+    }
+
+    private static Object getField(Class<?> owner, Object target, String fieldName) {
+        if (target == null) {
+            return null;
+        }
+        MethodHandle getter = MethodHandleCache.getter(owner == null ? target.getClass() : owner, fieldName);
+        if (getter == null) {
+            return null;
+        }
+        try {
+            return (Object) getter.invokeExact(target);
+        } catch (Throwable ignored) {
+            return null;
+        }
+    }
+
+    private static Object invokeNoArg(Object target, String methodName) {
+        if (target == null) {
+            return null;
+        }
+        MethodHandle method = MethodHandleCache.method(target.getClass(), methodName);
+        if (method == null) {
+            return null;
+        }
+        try {
+            return (Object) method.invokeExact(target);
+        } catch (Throwable ignored) {
+            return null;
+        }
+    }
+
+    private static Object invoke(Object target, String methodName, Class<?> parameterType, Object arg) {
+        if (target == null) {
+            return null;
+        }
+        MethodHandle method = MethodHandleCache.method(target.getClass(), methodName, parameterType);
+        if (method == null) {
+            return null;
+        }
+        try {
+            return (Object) method.invokeExact(target, arg);
+        } catch (Throwable ignored) {
+            return null;
+        }
+    }
+}
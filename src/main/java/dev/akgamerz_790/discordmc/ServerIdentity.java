@@ -0,0 +1,17 @@
+package dev.akgamerz_790.discordmc;
+
+/**
+ * Everything presence needs to know about the server behind the current connection. It is
+ * derived from the {@code ServerInfo} once per connection instead of on every capture.
+ */
+record ServerIdentity(
+    String motd,
+    String name,
+    String address,
+    String host,
+    String iconKey,
+    String partyId,
+    String lastMode
+) {
+    static final ServerIdentity NONE = new ServerIdentity("", "", "", "", "", null, "");
+}
@@ -0,0 +1,193 @@
+package dev.akgamerz_790.discordmc;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Known server networks, keyed by domain and by MOTD keyword. The bundled
+ * {@code assets/discordmc/servers.json} is loaded first and {@code config/discordmc-servers.json},
+ * if present, is layered on top, so users can add networks or replace the name and icon of a
+ * bundled one. User keywords are also matched ahead of bundled ones.
+ */
+final class ServerRegistry {
+    static final String BUNDLED_RESOURCE = "/assets/discordmc/servers.json";
+    static final String OVERRIDE_FILE = "discordmc-servers.json";
+
+    private static final Gson GSON = new Gson();
+    private static volatile ServerRegistry instance;
+
+    private final HostTrie<Entry> hosts = new HostTrie<>();
+    private final MotdMatcher<Entry> motdKeywords;
+    private final long version;
+
+    record Entry(String name, String iconKey) {
+    }
+
+    private ServerRegistry(List<Definition> bundled, List<Definition> overrides) {
+        MotdMatcher.Builder<Entry> keywords = new MotdMatcher.Builder<>();
+        List<Entry> bundledEntries = addAll(bundled);
+        List<Entry> overrideEntries = addAll(overrides);
+        addKeywords(keywords, overrides, overrideEntries);
+        addKeywords(keywords, bundled, bundledEntries);
+        motdKeywords = keywords.build();
+        version = fingerprint(GSON.toJson(bundled) + '\n' + GSON.toJson(overrides));
+    }
+
+    static ServerRegistry get() {
+        ServerRegistry registry = instance;
+        if (registry == null) {
+            synchronized (ServerRegistry.class) {
+                registry = instance;
+                if (registry == null) {
+                    registry = load(DiscordMCConfig.file(OVERRIDE_FILE));
+                    instance = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * Drops the loaded registry so the next lookup re-reads both files.
+     */
+    static void reload() {
+        instance = null;
+    }
+
+    static ServerRegistry load(Path overrideFile) {
+        List<Definition> bundled = List.of();
+        try (InputStream in = ServerRegistry.class.getResourceAsStream(BUNDLED_RESOURCE)) {
+            if (in == null) {
+                DiscordMC.LOGGER.warn("Bundled server registry {} is missing.", BUNDLED_RESOURCE);
+            } else {
+                bundled = read(new InputStreamReader(in, StandardCharsets.UTF_8));
+            }
+        } catch (IOException | JsonParseException e) {
+            DiscordMC.LOGGER.error("Failed to load bundled server registry.", e);
+        }
+
+        List<Definition> overrides = List.of();
+        if (overrideFile != null && Files.exists(overrideFile)) {
+            try (Reader reader = Files.newBufferedReader(overrideFile, StandardCharsets.UTF_8)) {
+                overrides = read(reader);
+            } catch (IOException | JsonParseException e) {
+                DiscordMC.LOGGER.error("Failed to load {}, using bundled servers only.", overrideFile.getFileName(), e);
+            }
+        }
+        return new ServerRegistry(bundled, overrides);
+    }
+
+    static ServerRegistry of(List<Definition> definitions) {
+        return new ServerRegistry(definitions, List.of());
+    }
+
+    /**
+     * The entry for the longest registered domain {@code host} belongs to, or {@code null}.
+     */
+    Entry find(String host) {
+        return host == null || host.isEmpty() ? null : hosts.find(host);
+    }
+
+    /**
+     * The entry whose MOTD keyword appears in {@code motd}, or {@code null}.
+     */
+    Entry matchMotd(String motd) {
+        return motdKeywords.match(motd);
+    }
+
+    int size() {
+        return hosts.size();
+    }
+
+    /**
+     * A fingerprint of the definitions this registry was built from. It stays the same across
+     * restarts and reloads until either file changes, so {@link LearnedServers} stores it to tell
+     * which names were resolved against an older registry.
+     */
+    long version() {
+        return version;
+    }
+
+    // 64-bit FNV-1a over the UTF-16 units, never 0 so it cannot match an entry without one.
+    private static long fingerprint(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0L ? 1L : hash;
+    }
+
+    // Returns one entry per definition, null for definitions without a name.
+    private List<Entry> addAll(List<Definition> definitions) {
+        List<Entry> entries = new ArrayList<>(definitions.size());
+        for (Definition definition : definitions) {
+            if (definition == null || definition.name == null || definition.name.isBlank()) {
+                entries.add(null);
+                continue;
+            }
+            Entry entry = new Entry(definition.name.trim(), definition.icon == null ? "" : definition.icon.trim());
+            entries.add(entry);
+            if (definition.hosts == null) {
+                continue;
+            }
+            for (String host : definition.hosts) {
+                if (host != null && !host.isBlank()) {
+                    hosts.put(host.trim().toLowerCase(Locale.ROOT), entry);
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static void addKeywords(MotdMatcher.Builder<Entry> keywords, List<Definition> definitions, List<Entry> entries) {
+        for (int i = 0; i < definitions.size(); i++) {
+            Entry entry = entries.get(i);
+            if (entry == null || definitions.get(i).motd == null) {
+                continue;
+            }
+            for (String keyword : definitions.get(i).motd) {
+                if (keyword != null) {
+                    keywords.add(keyword, entry);
+                }
+            }
+        }
+    }
+
+    private static List<Definition> read(Reader reader) {
+        RegistryFile file = GSON.fromJson(reader, RegistryFile.class);
+        return file == null || file.servers == null ? List.of() : file.servers;
+    }
+
+    static final class Definition {
+        String name;
+        List<String> hosts = new ArrayList<>();
+        String icon = "";
+        List<String> motd = new ArrayList<>();
+
+        Definition() {
+        }
+
+        Definition(String name, List<String> hosts, String icon, List<String> motd) {
+            this.name = name;
+            this.hosts = hosts;
+            this.icon = icon;
+            this.motd = motd;
+        }
+    }
+
+    private static final class RegistryFile {
+        List<Definition> servers;
+    }
+}
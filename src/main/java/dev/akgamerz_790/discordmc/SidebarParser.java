@@ -0,0 +1,187 @@
+package dev.akgamerz_790.discordmc;
+
+import net.minecraft.network.packet.s2c.play.TeamS2CPacket;
+import net.minecraft.scoreboard.Scoreboard;
+import net.minecraft.scoreboard.ScoreboardDisplaySlot;
+import net.minecraft.scoreboard.ScoreboardEntry;
+import net.minecraft.scoreboard.ScoreboardObjective;
+import net.minecraft.scoreboard.Team;
+import net.minecraft.text.Text;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The lines of the displayed sidebar, kept up to date from score and team packets, and the mode
+ * and map the configured {@link SidebarRules} pick out of them. A line is flattened and matched
+ * again only when its own score entry or its holder's team changed; the objective's entries are
+ * only read in full when a different objective is displayed. Client thread only.
+ */
+public final class SidebarParser {
+    private static final TextFlattener FLATTENER = new TextFlattener();
+    private static final Map<String, Line> LINES = new HashMap<>();
+    private static String objective;
+    private static SidebarRules rules = SidebarRules.NONE;
+    private static Fields fields = Fields.EMPTY;
+
+    record Fields(String mode, String map) {
+        static final Fields EMPTY = new Fields("", "");
+    }
+
+    private static final class Line {
+        private final String holder;
+        private Text display;
+        private int score;
+        private String team;
+        private String text = "";
+        private SidebarRules.Match match = SidebarRules.Match.NONE;
+
+        private Line(String holder) {
+            this.holder = holder;
+        }
+    }
+
+    private SidebarParser() {
+    }
+
+    /**
+     * Re-reads the sidebar when the displayed objective changed. Returns whether the fields changed.
+     */
+    public static boolean onObjectiveChanged(Scoreboard scoreboard) {
+        if (scoreboard == null) {
+            return false;
+        }
+        ScoreboardObjective current = scoreboard.getObjectiveForSlot(ScoreboardDisplaySlot.SIDEBAR);
+        String name = current == null ? null : current.getName();
+        if (Objects.equals(name, objective)) {
+            return false;
+        }
+
+        objective = name;
+        LINES.clear();
+        if (current != null) {
+            for (ScoreboardEntry entry : scoreboard.getScoreboardEntries(current)) {
+                if (!entry.hidden()) {
+                    Line line = new Line(entry.owner());
+                    line.display = entry.display();
+                    line.score = entry.value();
+                    LINES.put(line.holder, line);
+                    render(scoreboard, line);
+                }
+            }
+        }
+        return resolve();
+    }
+
+    public static boolean onScoreUpdate(Scoreboard scoreboard, String holder, String objectiveName, int score, Text display) {
+        if (scoreboard == null || objective == null || !objective.equals(objectiveName) || isHidden(holder)) {
+            return false;
+        }
+        Line line = LINES.computeIfAbsent(holder, Line::new);
+        // A matched line that moved can change which line wins a tie.
+        boolean moved = line.score != score && line.match != SidebarRules.Match.NONE;
+        line.score = score;
+        line.display = display;
+        return (render(scoreboard, line) || moved) && resolve();
+    }
+
+    public static boolean onScoreReset(String holder, String objectiveName) {
+        if (objective == null || (objectiveName != null && !objective.equals(objectiveName))) {
+            return false;
+        }
+        return LINES.remove(holder) != null && resolve();
+    }
+
+    /**
+     * Re-renders the lines whose holder the packet moved or whose team it changed.
+     */
+    public static boolean onTeamUpdate(Scoreboard scoreboard, TeamS2CPacket packet) {
+        if (scoreboard == null || LINES.isEmpty()) {
+            return false;
+        }
+        Collection<String> players = packet.getPlayerNames();
+        boolean changed = false;
+        for (Line line : LINES.values()) {
+            if (packet.getTeamName().equals(line.team) || (players != null && players.contains(line.holder))) {
+                changed |= render(scoreboard, line);
+            }
+        }
+        return changed && resolve();
+    }
+
+    static void reset() {
+        objective = null;
+        LINES.clear();
+        fields = Fields.EMPTY;
+    }
+
+    static Fields fields() {
+        SidebarRules current = DiscordMCConfig.get().sidebarRules;
+        if (current != rules) {
+            rules = current;
+            for (Line line : LINES.values()) {
+                line.match = rules.apply(line.text);
+            }
+            resolve();
+        }
+        return fields;
+    }
+
+    /**
+     * Flattens the line as the sidebar draws it and re-applies the rules if the text changed.
+     */
+    private static boolean render(Scoreboard scoreboard, Line line) {
+        Team team = scoreboard.getScoreHolderTeam(line.holder);
+        line.team = team == null ? null : team.getName();
+        Text name = line.display != null ? line.display : Text.literal(line.holder);
+        String text = FLATTENER.flatten(Team.decorateName(team, name), line.text);
+        if (text == line.text) {
+            return false;
+        }
+        line.text = text;
+        line.match = rules.apply(text);
+        return true;
+    }
+
+    /**
+     * Picks each field from the line matched by the earliest rule, the higher line on a tie.
+     */
+    private static boolean resolve() {
+        Line modeLine = null;
+        Line mapLine = null;
+        for (Line line : LINES.values()) {
+            SidebarRules.Match match = line.match;
+            if (match.modeRule() != SidebarRules.NO_RULE && (modeLine == null || ranksAbove(line, modeLine, match.modeRule(), modeLine.match.modeRule()))) {
+                modeLine = line;
+            }
+            if (match.mapRule() != SidebarRules.NO_RULE && (mapLine == null || ranksAbove(line, mapLine, match.mapRule(), mapLine.match.mapRule()))) {
+                mapLine = line;
+            }
+        }
+
+        String mode = modeLine == null ? "" : modeLine.match.mode();
+        String map = mapLine == null ? "" : mapLine.match.map();
+        if (mode.equals(fields.mode()) && map.equals(fields.map())) {
+            return false;
+        }
+        fields = mode.isEmpty() && map.isEmpty() ? Fields.EMPTY : new Fields(mode, map);
+        return true;
+    }
+
+    private static boolean ranksAbove(Line line, Line best, int rule, int bestRule) {
+        if (rule != bestRule) {
+            return rule < bestRule;
+        }
+        if (line.score != best.score) {
+            return line.score > best.score;
+        }
+        return line.holder.compareTo(best.holder) < 0;
+    }
+
+    // Mirrors ScoreboardEntry.hidden(): holders starting with '#' are never drawn.
+    private static boolean isHidden(String holder) {
+        return holder.startsWith("#");
+    }
+}
@@ -0,0 +1,114 @@
+package dev.akgamerz_790.discordmc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The {@code sidebarRules} from the config, compiled once when it loads. A literal rule matches a
+ * line containing its text, ignoring case, and yields what follows it; a regex rule yields its
+ * first group, or else what follows the match. For each field the first matching rule wins.
+ */
+final class SidebarRules {
+    static final int NO_RULE = Integer.MAX_VALUE;
+    static final SidebarRules NONE = new SidebarRules(List.of());
+
+    private final List<Rule> rules;
+
+    private record Rule(boolean map, String literal, Pattern pattern) {
+    }
+
+    /**
+     * What one line yielded, with the index of the rule that matched each field.
+     */
+    record Match(String mode, int modeRule, String map, int mapRule) {
+        static final Match NONE = new Match("", NO_RULE, "", NO_RULE);
+    }
+
+    private SidebarRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    static SidebarRules compile(List<DiscordMCConfig.SidebarRule> configured) {
+        if (configured == null || configured.isEmpty()) {
+            return NONE;
+        }
+
+        List<Rule> rules = new ArrayList<>(configured.size());
+        for (DiscordMCConfig.SidebarRule rule : configured) {
+            if (rule == null || rule.match == null || rule.match.isEmpty()) {
+                continue;
+            }
+            String field = rule.field == null ? "" : rule.field.trim().toLowerCase(Locale.ROOT);
+            if (!field.equals("mode") && !field.equals("map")) {
+                DiscordMC.LOGGER.warn("Ignoring sidebar rule '{}' with unknown field '{}'.", rule.match, rule.field);
+                continue;
+            }
+            if (!rule.regex) {
+                rules.add(new Rule(field.equals("map"), rule.match, null));
+                continue;
+            }
+            try {
+                rules.add(new Rule(field.equals("map"), null, Pattern.compile(rule.match, Pattern.CASE_INSENSITIVE)));
+            } catch (PatternSyntaxException e) {
+                DiscordMC.LOGGER.warn("Ignoring sidebar rule with invalid regex '{}': {}", rule.match, e.getDescription());
+            }
+        }
+        return rules.isEmpty() ? NONE : new SidebarRules(List.copyOf(rules));
+    }
+
+    boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    Match apply(String line) {
+        if (line.isEmpty() || rules.isEmpty()) {
+            return Match.NONE;
+        }
+
+        String mode = "";
+        String map = "";
+        int modeRule = NO_RULE;
+        int mapRule = NO_RULE;
+        for (int i = 0; i < rules.size(); i++) {
+            Rule rule = rules.get(i);
+            if (rule.map() ? mapRule != NO_RULE : modeRule != NO_RULE) {
+                continue;
+            }
+            String value = rule.pattern() == null ? afterLiteral(line, rule.literal()) : fromPattern(line, rule.pattern());
+            if (value.isEmpty()) {
+                continue;
+            }
+            if (rule.map()) {
+                map = value;
+                mapRule = i;
+            } else {
+                mode = value;
+                modeRule = i;
+            }
+        }
+        return modeRule == NO_RULE && mapRule == NO_RULE ? Match.NONE : new Match(mode, modeRule, map, mapRule);
+    }
+
+    private static String afterLiteral(String line, String literal) {
+        int last = line.length() - literal.length();
+        for (int i = 0; i <= last; i++) {
+            if (line.regionMatches(true, i, literal, 0, literal.length())) {
+                return line.substring(i + literal.length()).trim();
+            }
+        }
+        return "";
+    }
+
+    private static String fromPattern(String line, Pattern pattern) {
+        Matcher matcher = pattern.matcher(line);
+        if (!matcher.find()) {
+            return "";
+        }
+        String group = matcher.groupCount() > 0 ? matcher.group(1) : null;
+        return (group != null ? group : line.substring(matcher.end())).trim();
+    }
+}
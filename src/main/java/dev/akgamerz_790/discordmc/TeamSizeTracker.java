@@ -0,0 +1,124 @@
+package dev.akgamerz_790.discordmc;
+
+import net.minecraft.network.packet.s2c.play.TeamS2CPacket;
+import net.minecraft.scoreboard.Scoreboard;
+import net.minecraft.scoreboard.Team;
+import net.minecraft.util.Formatting;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the size of every colored team, updated from team packets instead of walking every
+ * scoreboard team on each capture. After a packet is applied only the teams it touched are
+ * re-read: the named team, plus the previous teams of players it moved, which the scoreboard
+ * leaves without a packet of their own. The Bed Wars style variant string is rebuilt only after a
+ * size actually changed, and only walks the teams when at least two of them count. Client thread
+ * only.
+ */
+public final class TeamSizeTracker {
+    // What each team last counted for, updated in place so a packet does not allocate. Teams
+    // without a color count as empty.
+    private static final Map<String, Counted> KNOWN = new HashMap<>();
+    private static final List<String> TOUCHED = new ArrayList<>();
+    private static int nonEmptyTeams;
+    private static long version;
+    private static long variantVersion = -1;
+    private static String variant = "";
+
+    private TeamSizeTracker() {
+    }
+
+    private static final class Counted {
+        private int size;
+    }
+
+    public static void beforeTeamPacket(Scoreboard scoreboard, TeamS2CPacket packet) {
+        TOUCHED.clear();
+        Collection<String> players = packet.getPlayerNames();
+        if (scoreboard == null || players == null) {
+            return;
+        }
+        for (String player : players) {
+            Team previous = scoreboard.getScoreHolderTeam(player);
+            if (previous != null && !previous.getName().equals(packet.getTeamName())) {
+                TOUCHED.add(previous.getName());
+            }
+        }
+    }
+
+    public static void afterTeamPacket(Scoreboard scoreboard, TeamS2CPacket packet) {
+        if (scoreboard == null) {
+            return;
+        }
+        refresh(scoreboard, packet.getTeamName());
+        for (String name : TOUCHED) {
+            refresh(scoreboard, name);
+        }
+        TOUCHED.clear();
+    }
+
+    static void reset() {
+        KNOWN.clear();
+        TOUCHED.clear();
+        nonEmptyTeams = 0;
+        version++;
+    }
+
+    /**
+     * Player counts of the non-empty colored teams joined by {@code v}, one per team in
+     * {@link Scoreboard#getTeams()} order, or an empty string when there are fewer than two of them.
+     */
+    static String variant(Scoreboard scoreboard) {
+        if (variantVersion != version) {
+            variantVersion = version;
+            variant = nonEmptyTeams < 2 ? "" : build(scoreboard);
+        }
+        return variant;
+    }
+
+    private static String build(Scoreboard scoreboard) {
+        StringBuilder out = new StringBuilder();
+        int segments = 0;
+        for (Team team : scoreboard.getTeams()) {
+            Counted counted = team == null ? null : KNOWN.get(team.getName());
+            if (counted != null && counted.size > 0) {
+                if (segments++ > 0) {
+                    out.append('v');
+                }
+                out.append(counted.size);
+            }
+        }
+        return segments < 2 ? "" : out.toString();
+    }
+
+    private static void refresh(Scoreboard scoreboard, String name) {
+        if (name == null) {
+            return;
+        }
+        Team team = scoreboard.getTeam(name);
+        int size = team == null || !isColored(team.getColor()) ? 0 : team.getPlayerList().size();
+
+        Counted counted = team == null ? KNOWN.remove(name) : KNOWN.computeIfAbsent(name, ignored -> new Counted());
+        int previousSize = counted == null ? 0 : counted.size;
+        if (previousSize == size) {
+            return;
+        }
+        if (team != null) {
+            counted.size = size;
+        }
+        if (previousSize == 0) {
+            nonEmptyTeams++;
+        } else if (size == 0) {
+            nonEmptyTeams--;
+        }
+        version++;
+    }
+
+    private static boolean isColored(Formatting color) {
+        return color != null && color.isColor();
+    }
+}
@@ -0,0 +1,126 @@
+package dev.akgamerz_790.discordmc;
+
+import net.minecraft.text.StringVisitable;
+import net.minecraft.text.Text;
+
+import java.util.Optional;
+
+/**
+ * Turns {@link Text} into the single-line plain string presence shows, in one pass over the text's
+ * string parts: legacy formatting codes are dropped, whitespace runs collapse to one space and the
+ * ends are trimmed, matching what {@code getString()} followed by a whitespace regex produced.
+ * The builder is reused and the result is compared to the caller's previous value first, so an
+ * unchanged text costs no allocation. Not thread-safe; use from the client thread.
+ */
+final class TextFlattener implements StringVisitable.Visitor<Object> {
+    private static final char FORMATTING_PREFIX = '\u00A7';
+
+    private final StringBuilder builder = new StringBuilder(128);
+    private boolean pendingSpace;
+    private boolean pendingFormatting;
+
+    /**
+     * The flattened form of {@code text}, returning {@code previous} itself when it is equal.
+     */
+    String flatten(Text text, String previous) {
+        if (text == null) {
+            return "";
+        }
+        builder.setLength(0);
+        pendingSpace = false;
+        pendingFormatting = false;
+        text.visit(this);
+
+        int end = builder.length();
+        while (end > 0 && builder.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        builder.setLength(end);
+        if (previous != null && previous.contentEquals(builder)) {
+            return previous;
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public Optional<Object> accept(String part) {
+        for (int i = 0; i < part.length(); i++) {
+            char c = part.charAt(i);
+            if (pendingFormatting) {
+                pendingFormatting = false;
+                if (!isLineTerminator(c)) {
+                    continue;
+                }
+                append(FORMATTING_PREFIX);
+            }
+            if (c == FORMATTING_PREFIX) {
+                pendingFormatting = true;
+                continue;
+            }
+            append(c);
+        }
+        return Optional.empty();
+    }
+
+    private void append(char c) {
+        if (isWhitespace(c)) {
+            pendingSpace = true;
+            return;
+        }
+        if (builder.isEmpty()) {
+            // Mirrors String.trim(), which also drops leading control characters.
+            pendingSpace = false;
+            if (c <= ' ') {
+                return;
+            }
+        }
+        if (pendingSpace) {
+            builder.append(' ');
+            pendingSpace = false;
+        }
+        builder.append(c);
+    }
+
+    /**
+     * Collapses whitespace runs to one space and trims, without the regex engine. Unlike
+     * {@link #flatten} this keeps formatting codes, for user-supplied strings.
+     */
+    static String collapseWhitespace(String value) {
+        if (value == null) {
+            return "";
+        }
+        int length = value.length();
+        boolean collapsed = true;
+        for (int i = 0; i < length && collapsed; i++) {
+            char c = value.charAt(i);
+            collapsed = c == ' ' ? i == 0 || value.charAt(i - 1) != ' ' : !isWhitespace(c);
+        }
+        if (collapsed) {
+            return value.trim();
+        }
+
+        StringBuilder out = new StringBuilder(length);
+        boolean space = false;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (isWhitespace(c)) {
+                space = true;
+            } else {
+                if (space && !out.isEmpty()) {
+                    out.append(' ');
+                }
+                space = false;
+                out.append(c);
+            }
+        }
+        return out.toString().trim();
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
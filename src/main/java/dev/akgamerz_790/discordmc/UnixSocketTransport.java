@@ -0,0 +1,171 @@
+package dev.akgamerz_790.discordmc;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+final class UnixSocketTransport implements DiscordIpcClient.Transport {
+    private static final long IO_TIMEOUT_MILLIS = 5_000L;
+    private static final int PREFETCH_CAPACITY = 8192;
+
+    // Discord installs that sandbox their runtime dir (flatpak, snap) put the socket one level down.
+    private static final String[] SUBDIRECTORIES = {
+        "",
+        "app/com.discordapp.Discord/",
+        "app/com.discordapp.DiscordCanary/",
+        "app/com.discordapp.DiscordPTB/",
+        "app/dev.vencord.Vesktop/",
+        "snap.discord/",
+        "snap.discord-canary/",
+        ".flatpak/com.discordapp.Discord/xdg-run/",
+        ".flatpak/dev.vencord.Vesktop/xdg-run/"
+    };
+
+    private final SocketChannel channel;
+    // Separate selectors so the connection thread can wait for input while the writer thread
+    // waits for buffer space.
+    private final Selector readSelector;
+    private final Selector writeSelector;
+    private final ByteBuffer prefetch = ByteBuffer.allocateDirect(PREFETCH_CAPACITY).flip();
+
+    private UnixSocketTransport(SocketChannel channel, Selector readSelector, Selector writeSelector) throws IOException {
+        this.channel = channel;
+        this.readSelector = readSelector;
+        this.writeSelector = writeSelector;
+        channel.register(readSelector, SelectionKey.OP_READ);
+        channel.register(writeSelector, SelectionKey.OP_WRITE);
+    }
+
+    static UnixSocketTransport open(Path path) throws IOException {
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        Selector readSelector = null;
+        Selector writeSelector = null;
+        try {
+            channel.connect(UnixDomainSocketAddress.of(path));
+            channel.configureBlocking(false);
+            readSelector = Selector.open();
+            writeSelector = Selector.open();
+            return new UnixSocketTransport(channel, readSelector, writeSelector);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            if (readSelector != null) {
+                readSelector.close();
+            }
+            if (writeSelector != null) {
+                writeSelector.close();
+            }
+            throw e;
+        }
+    }
+
+    static List<Path> candidates(int count) {
+        Set<String> roots = new LinkedHashSet<>();
+        for (String variable : new String[]{"XDG_RUNTIME_DIR", "TMPDIR", "TMP", "TEMP"}) {
+            String value = System.getenv(variable);
+            if (value != null && !value.isBlank()) {
+                roots.add(value.trim());
+            }
+        }
+        roots.add("/tmp");
+
+        List<Path> sockets = new ArrayList<>();
+        for (String root : roots) {
+            for (String subdirectory : SUBDIRECTORIES) {
+                for (int i = 0; i < count; i++) {
+                    Path socket = Path.of(root, subdirectory + "discord-ipc-" + i);
+                    if (Files.exists(socket)) {
+                        sockets.add(socket);
+                    }
+                }
+            }
+        }
+        return sockets;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (prefetch.remaining() < prefetch.capacity()) {
+            prefetch.compact();
+            int read = channel.read(prefetch);
+            prefetch.flip();
+            if (read < 0 && !prefetch.hasRemaining()) {
+                throw new EOFException("Discord IPC stream ended");
+            }
+        }
+        return prefetch.remaining();
+    }
+
+    @Override
+    public void read(ByteBuffer dst) throws IOException {
+        while (dst.hasRemaining()) {
+            if (prefetch.hasRemaining()) {
+                int limit = prefetch.limit();
+                prefetch.limit(prefetch.position() + Math.min(prefetch.remaining(), dst.remaining()));
+                dst.put(prefetch);
+                prefetch.limit(limit);
+                continue;
+            }
+
+            int read = channel.read(dst);
+            if (read < 0) {
+                throw new EOFException("Discord IPC stream ended");
+            }
+            if (read == 0 && !await(readSelector, IO_TIMEOUT_MILLIS)) {
+                throw new SocketTimeoutException("Discord IPC timed out");
+            }
+        }
+    }
+
+    @Override
+    public void write(ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            if (channel.write(src) == 0 && !await(writeSelector, IO_TIMEOUT_MILLIS)) {
+                throw new SocketTimeoutException("Discord IPC timed out");
+            }
+        }
+    }
+
+    @Override
+    public boolean awaitReadable(long timeoutMillis) throws IOException {
+        // Whole frames never stay in the prefetch buffer after a poll, so only the socket matters.
+        return await(readSelector, timeoutMillis);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            readSelector.close();
+        } finally {
+            try {
+                writeSelector.close();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private static boolean await(Selector selector, long timeoutMillis) throws IOException {
+        try {
+            return selector.select(timeoutMillis) > 0;
+        } catch (ClosedSelectorException e) {
+            throw new EOFException("Discord IPC transport closed");
+        } finally {
+            if (selector.isOpen()) {
+                selector.selectedKeys().clear();
+            }
+        }
+    }
+}
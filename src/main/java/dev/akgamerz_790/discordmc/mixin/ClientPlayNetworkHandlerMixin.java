@@ -0,0 +1,90 @@
+package dev.akgamerz_790.discordmc.mixin;
+
+import dev.akgamerz_790.discordmc.PresenceInputs;
+import dev.akgamerz_790.discordmc.SidebarParser;
+import dev.akgamerz_790.discordmc.TeamSizeTracker;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.network.packet.s2c.play.PlayerListHeaderS2CPacket;
+import net.minecraft.network.packet.s2c.play.PlayerListS2CPacket;
+import net.minecraft.network.packet.s2c.play.PlayerRemoveS2CPacket;
+import net.minecraft.network.packet.s2c.play.ScoreboardDisplayS2CPacket;
+import net.minecraft.network.packet.s2c.play.ScoreboardObjectiveUpdateS2CPacket;
+import net.minecraft.network.packet.s2c.play.ScoreboardScoreResetS2CPacket;
+import net.minecraft.network.packet.s2c.play.ScoreboardScoreUpdateS2CPacket;
+import net.minecraft.network.packet.s2c.play.ServerMetadataS2CPacket;
+import net.minecraft.network.packet.s2c.play.TeamS2CPacket;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+// Handlers bounce to the client thread before applying the packet, so RETURN only runs there.
+@Mixin(ClientPlayNetworkHandler.class)
+public abstract class ClientPlayNetworkHandlerMixin {
+    @Inject(method = "onScoreboardObjectiveUpdate", at = @At("RETURN"))
+    private void discordmc$onScoreboardObjectiveUpdate(ScoreboardObjectiveUpdateS2CPacket packet, CallbackInfo ci) {
+        SidebarParser.onObjectiveChanged(((ClientPlayNetworkHandler) (Object) this).getScoreboard());
+        PresenceInputs.mark(PresenceInputs.SCOREBOARD);
+    }
+
+    @Inject(method = "onScoreboardDisplay", at = @At("RETURN"))
+    private void discordmc$onScoreboardDisplay(ScoreboardDisplayS2CPacket packet, CallbackInfo ci) {
+        SidebarParser.onObjectiveChanged(((ClientPlayNetworkHandler) (Object) this).getScoreboard());
+        PresenceInputs.mark(PresenceInputs.SCOREBOARD);
+    }
+
+    @Inject(method = "onScoreboardScoreUpdate", at = @At("RETURN"))
+    private void discordmc$onScoreboardScoreUpdate(ScoreboardScoreUpdateS2CPacket packet, CallbackInfo ci) {
+        ClientPlayNetworkHandler handler = (ClientPlayNetworkHandler) (Object) this;
+        if (SidebarParser.onScoreUpdate(handler.getScoreboard(), packet.scoreHolderName(), packet.objectiveName(), packet.score(), packet.display().orElse(null))) {
+            PresenceInputs.mark(PresenceInputs.SCOREBOARD);
+        }
+    }
+
+    @Inject(method = "onScoreboardScoreReset", at = @At("RETURN"))
+    private void discordmc$onScoreboardScoreReset(ScoreboardScoreResetS2CPacket packet, CallbackInfo ci) {
+        if (SidebarParser.onScoreReset(packet.scoreHolderName(), packet.objectiveName())) {
+            PresenceInputs.mark(PresenceInputs.SCOREBOARD);
+        }
+    }
+
+    // HEAD also runs once on the network thread before the handler bounces; only the second pass counts.
+    @Inject(method = "onTeam", at = @At("HEAD"))
+    private void discordmc$beforeTeam(TeamS2CPacket packet, CallbackInfo ci) {
+        ClientPlayNetworkHandler handler = (ClientPlayNetworkHandler) (Object) this;
+        if (MinecraftClient.getInstance().isOnThread()) {
+            TeamSizeTracker.beforeTeamPacket(handler.getScoreboard(), packet);
+        }
+    }
+
+    @Inject(method = "onTeam", at = @At("RETURN"))
+    private void discordmc$onTeam(TeamS2CPacket packet, CallbackInfo ci) {
+        ClientPlayNetworkHandler handler = (ClientPlayNetworkHandler) (Object) this;
+        TeamSizeTracker.afterTeamPacket(handler.getScoreboard(), packet);
+        if (SidebarParser.onTeamUpdate(handler.getScoreboard(), packet)) {
+            PresenceInputs.mark(PresenceInputs.SCOREBOARD);
+        }
+        PresenceInputs.mark(PresenceInputs.TEAMS);
+    }
+
+    @Inject(method = "onPlayerListHeader", at = @At("RETURN"))
+    private void discordmc$onPlayerListHeader(PlayerListHeaderS2CPacket packet, CallbackInfo ci) {
+        PresenceInputs.mark(PresenceInputs.PLAYER_LIST);
+    }
+
+    @Inject(method = "onPlayerList", at = @At("RETURN"))
+    private void discordmc$onPlayerList(PlayerListS2CPacket packet, CallbackInfo ci) {
+        PresenceInputs.mark(PresenceInputs.PLAYER_LIST);
+    }
+
+    @Inject(method = "onPlayerRemove", at = @At("RETURN"))
+    private void discordmc$onPlayerRemove(PlayerRemoveS2CPacket packet, CallbackInfo ci) {
+        PresenceInputs.mark(PresenceInputs.PLAYER_LIST);
+    }
+
+    @Inject(method = "onServerMetadata", at = @At("RETURN"))
+    private void discordmc$onServerMetadata(ServerMetadataS2CPacket packet, CallbackInfo ci) {
+        PresenceInputs.mark(PresenceInputs.SERVER_INFO);
+    }
+}
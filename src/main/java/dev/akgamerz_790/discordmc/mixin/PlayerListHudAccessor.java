@@ -0,0 +1,15 @@
+package dev.akgamerz_790.discordmc.mixin;
+
+import net.minecraft.client.gui.hud.PlayerListHud;
+import net.minecraft.text.Text;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(PlayerListHud.class)
+public interface PlayerListHudAccessor {
+    @Accessor("header")
+    Text getHeader();
+
+    @Accessor("footer")
+    Text getFooter();
+}
@@ -0,0 +1,161 @@
+package dev.akgamerz_790.discordmc;
+
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link ActivityEncoder} must produce exactly the bytes of the Gson {@code JsonObject} tree that
+ * {@code setActivity} built before it, escaping included.
+ */
+class ActivityEncoderTest {
+    private static final String[] TEXTS = {
+        "Playing Bed Wars",
+        "quote \" and backslash \\ and slash /",
+        "tab\tnewline\ncarriage\rbackspace\bform\f",
+        "\u0000\u0001\u001f\u007f control",
+        // JsonElement.toString() does not HTML-escape; only a Gson instance does by default.
+        "html <b>&amp;</b> a='b'",
+        "line\u2028paragraph\u2029separators",
+        "\u00e9\u00df\u4e16\u754c 2- and 3-byte UTF-8",
+        "non-BMP \ud83c\udfae\ud800\udc00 pair",
+        "lone high \ud83c end",
+        "lone low \udfae end",
+        "\ud83c",
+        "reversed \udfae\ud83c pair",
+        "high before escape \ud83c\"",
+        "high at the end \ud83c",
+    };
+
+    private final IpcFrameWriter writer = new IpcFrameWriter(64 * 1024);
+
+    @Test
+    void menuActivity() throws IOException {
+        assertSameBytes(activity("In the menus", null, "menu", "Minecraft", null, null, null, 0, 0, null, 1_700_000_000L), 1);
+    }
+
+    @Test
+    void fullActivity() throws IOException {
+        assertSameBytes(activity("Playing Bed Wars", "Playing on Hypixel (48213/200000)", "overworld", "Minecraft",
+            "hypixel", "Hypixel", "mc.hypixel.net", 4, 16, "mc.hypixel.net", 1_700_000_000L), Long.MAX_VALUE);
+    }
+
+    @Test
+    void nullAndBlankFieldsAreOmitted() throws IOException {
+        assertSameBytes(activity(null, null, null, null, null, null, null, 0, 0, null, 0L), 0);
+        assertSameBytes(activity("", " ", "\t", "\n ", "\u3000", "\u2028", "", 0, 0, "  ", 0L), 2);
+        assertSameBytes(activity(null, null, null, null, " ", "small", null, 0, 0, null, -5L), 3);
+    }
+
+    @Test
+    void partyRules() throws IOException {
+        assertSameBytes(activity("d", "s", null, null, null, null, null, 4, 16, null, 0L), 4);
+        assertSameBytes(activity("d", "s", null, null, null, null, null, 5, 4, null, 0L), 5);
+        assertSameBytes(activity("d", "s", null, null, null, null, "party", 0, 0, null, 0L), 6);
+        assertSameBytes(activity("d", "s", null, null, null, null, " ", 3, 3, null, 0L), 7);
+        assertSameBytes(activity(null, null, null, null, null, null, null, 0, 0, "secret", 0L), 8);
+    }
+
+    @Test
+    void escapesEveryFieldLikeGson() throws IOException {
+        long nonce = 10;
+        for (String text : TEXTS) {
+            assertSameBytes(activity(text, text, text, text, text, text, text, 1, 1, text, 1L), nonce++);
+        }
+    }
+
+    @Test
+    void escapesEveryCharLikeGson() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            text.setLength(0);
+            text.append('a').append((char) c).append('z');
+            String value = text.toString();
+            assertSameBytes(activity(value, null, null, null, null, null, null, 0, 0, null, 0L), c);
+        }
+    }
+
+    private void assertSameBytes(DiscordIpcClient.Activity activity, long nonce) throws IOException {
+        ActivityEncoder.encode(activity, nonce, writer.begin(DiscordIpcClient.OP_FRAME));
+        ByteBuffer frame = writer.finish();
+        assertEquals(DiscordIpcClient.OP_FRAME, frame.getInt());
+        int length = frame.getInt();
+        byte[] actual = new byte[frame.remaining()];
+        frame.get(actual);
+        byte[] expected = legacyPayload(activity, nonce);
+        assertEquals(expected.length, length, () -> "length header for " + activity);
+        assertArrayEquals(expected, actual, () -> "payload for " + activity + "\nexpected " + new String(expected, StandardCharsets.UTF_8)
+            + "\nactual   " + new String(actual, StandardCharsets.UTF_8));
+    }
+
+    private static DiscordIpcClient.Activity activity(String details, String state, String largeImageKey, String largeImageText,
+                                                      String smallImageKey, String smallImageText, String partyId, int partySize,
+                                                      int partyMax, String joinSecret, long startTimestamp) {
+        return new DiscordIpcClient.Activity(details, state, largeImageKey, largeImageText, smallImageKey, smallImageText,
+            partyId, partySize, partyMax, joinSecret, startTimestamp);
+    }
+
+    // The pre-encoder setActivity payload, with the nonce the encoder was given.
+    private static byte[] legacyPayload(DiscordIpcClient.Activity activity, long nonce) {
+        JsonObject root = new JsonObject();
+        root.addProperty("cmd", "SET_ACTIVITY");
+
+        JsonObject args = new JsonObject();
+        args.addProperty("pid", ProcessHandle.current().pid());
+
+        JsonObject payload = new JsonObject();
+        addIfPresent(payload, "state", activity.state());
+        addIfPresent(payload, "details", activity.details());
+
+        JsonObject timestamps = new JsonObject();
+        if (activity.startTimestamp() > 0) {
+            timestamps.addProperty("start", activity.startTimestamp());
+        }
+        if (!timestamps.entrySet().isEmpty()) {
+            payload.add("timestamps", timestamps);
+        }
+
+        JsonObject assets = new JsonObject();
+        addIfPresent(assets, "large_image", activity.largeImageKey());
+        addIfPresent(assets, "large_text", activity.largeImageText());
+        addIfPresent(assets, "small_image", activity.smallImageKey());
+        addIfPresent(assets, "small_text", activity.smallImageText());
+        if (!assets.entrySet().isEmpty()) {
+            payload.add("assets", assets);
+        }
+
+        JsonObject party = new JsonObject();
+        addIfPresent(party, "id", activity.partyId());
+        if (activity.partySize() > 0 && activity.partyMax() >= activity.partySize()) {
+            party.addProperty("size", activity.partySize());
+            party.addProperty("max", activity.partyMax());
+        }
+        if (!party.entrySet().isEmpty()) {
+            payload.add("party", party);
+        }
+
+        JsonObject secrets = new JsonObject();
+        addIfPresent(secrets, "join", activity.joinSecret());
+        if (!secrets.entrySet().isEmpty()) {
+            payload.add("secrets", secrets);
+            payload.addProperty("instance", true);
+        }
+
+        args.add("activity", payload);
+        root.add("args", args);
+        root.addProperty("nonce", Long.toString(nonce));
+        return root.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void addIfPresent(JsonObject obj, String key, String value) {
+        if (value != null && !value.isBlank()) {
+            obj.addProperty(key, value);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package dev.akgamerz_790.discordmc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The token bucket the presence writer waits on, driven with explicit timestamps so the dispatch
+ * rate checks of the IPC harness hold without a clock.
+ */
+class ActivityRateLimiterTest {
+    private static final long WINDOW = 20_000L;
+    private static final long PER_TOKEN = WINDOW / 5;
+
+    @Test
+    void burstUpToCapacity() {
+        ActivityRateLimiter limiter = new ActivityRateLimiter(5, WINDOW, 0L);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0L, limiter.tryAcquire(0L));
+        }
+        assertEquals(PER_TOKEN, limiter.tryAcquire(0L));
+        assertEquals(PER_TOKEN - 1_000L, limiter.tryAcquire(1_000L));
+    }
+
+    @Test
+    void refillsOneTokenPerSlice() {
+        ActivityRateLimiter limiter = drained(0L);
+        assertEquals(1L, limiter.tryAcquire(PER_TOKEN - 1));
+        assertEquals(0L, limiter.tryAcquire(PER_TOKEN));
+        assertEquals(PER_TOKEN, limiter.tryAcquire(PER_TOKEN));
+
+        // A partial slice carries over to the next token.
+        assertEquals(0L, limiter.tryAcquire(PER_TOKEN * 2 + 500L));
+        assertEquals(PER_TOKEN - 500L, limiter.tryAcquire(PER_TOKEN * 2 + 500L));
+    }
+
+    @Test
+    void idleTimeDoesNotBankMoreThanCapacity() {
+        ActivityRateLimiter limiter = drained(0L);
+        long later = WINDOW * 10;
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0L, limiter.tryAcquire(later));
+        }
+        assertEquals(PER_TOKEN, limiter.tryAcquire(later));
+    }
+
+    @Test
+    void neverSendsMoreThanTheLimitPerWindow() {
+        ActivityRateLimiter limiter = new ActivityRateLimiter(5, WINDOW, 0L);
+        int sent = 0;
+        for (long now = 0; now < WINDOW * 3; now += 7) {
+            if (limiter.tryAcquire(now) == 0L) {
+                sent++;
+            }
+        }
+        // The initial burst, then one token per slice; the slice ending at 3 windows is not reached.
+        assertEquals(5 + 3 * 5 - 1, sent);
+    }
+
+    private static ActivityRateLimiter drained(long now) {
+        ActivityRateLimiter limiter = new ActivityRateLimiter(5, WINDOW, now);
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire(now);
+        }
+        return limiter;
+    }
+}
@@ -0,0 +1,86 @@
+package dev.akgamerz_790.discordmc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * The Aho-Corasick MOTD matcher: which keyword wins, and what of the raw MOTD it skips or folds.
+ */
+class MotdMatcherTest {
+    @Test
+    void findsKeywordsAnywhereIgnoringCase() {
+        MotdMatcher<String> matcher = matcher("hypixel", "mineplex", "cubecraft");
+        assertEquals("hypixel", matcher.match("Welcome to HYPIXEL!"));
+        assertEquals("mineplex", matcher.match("mineplex"));
+        assertEquals("cubecraft", matcher.match("play.CubeCraft.net"));
+        assertNull(matcher.match("A plain survival server"));
+        assertNull(matcher.match(""));
+        assertNull(matcher.match(null));
+        assertNull(new MotdMatcher.Builder<String>().build().match("hypixel"));
+    }
+
+    @Test
+    void earlierKeywordsWinRegardlessOfPosition() {
+        MotdMatcher<String> matcher = matcher("hypixel", "bed wars", "wars");
+        assertEquals("hypixel", matcher.match("Bed Wars on Hypixel"));
+        assertEquals("bed wars", matcher.match("Star Wars, then Bed Wars"));
+        assertEquals("wars", matcher.match("Star Wars"));
+    }
+
+    @Test
+    void keywordsInsideOtherKeywordsAreFound() {
+        // Needs the failure links: "abcx" fails over to "bc" and "c" partway through.
+        MotdMatcher<String> matcher = matcher("abcd", "bc", "c");
+        assertEquals("bc", matcher.match("xabcx"));
+        assertEquals("abcd", matcher.match("xabcd"));
+        assertEquals("c", matcher.match("ac"));
+
+        MotdMatcher<String> overlapping = matcher("aab", "ab");
+        assertEquals("aab", overlapping.match("aaab"));
+    }
+
+    @Test
+    void formattingCodesAndTagsAreSkipped() {
+        MotdMatcher<String> matcher = matcher("hypixel network", "sky block");
+        assertEquals("hypixel network", matcher.match("\u00a7aHy\u00a7lpixel \u00a7c[1.8-1.21]\u00a7r Network"));
+        // A tag separates words like whitespace does.
+        assertEquals("sky block", matcher.match("Sky[NEW]Block"));
+        assertEquals("sky block", matcher.match("Sky [NEW] Block"));
+        // An empty tag, one holding only formatting codes, or an unclosed one is text.
+        assertNull(matcher.match("Sky[]Block"));
+        assertNull(matcher.match("Sky[\u00a7a]Block"));
+        assertNull(matcher.match("Sky[ Block"));
+        // A formatting code cannot close a tag.
+        assertNull(matcher.match("Sky[x\u00a7] Block"));
+        assertEquals("sky block", matcher.match("Sky \u00a7bBlock"));
+        // A section sign before a line break is not a formatting code, so it stays in the text.
+        assertNull(matcher.match("Sky\u00a7\nBlock"));
+    }
+
+    @Test
+    void separatorsFoldToOneSpace() {
+        MotdMatcher<String> matcher = matcher("hypixel  |  network");
+        assertEquals("hypixel network", MotdMatcher.normalize(" Hypixel  |  Network "));
+        assertEquals("hypixel  |  network", matcher.match("Hypixel|Network"));
+        assertEquals("hypixel  |  network", matcher.match("Hypixel\t\n Network"));
+        assertEquals("hypixel  |  network", matcher.match("Hypixel [EU] Network"));
+        assertNull(matcher.match("HypixelNetwork"));
+    }
+
+    @Test
+    void blankKeywordsAreIgnored() {
+        MotdMatcher<String> matcher = new MotdMatcher.Builder<String>().add(" | ", "blank").add("mc", "mc").build();
+        assertEquals("mc", matcher.match(" mc "));
+        assertNull(matcher.match("   "));
+    }
+
+    private static MotdMatcher<String> matcher(String... keywords) {
+        MotdMatcher.Builder<String> builder = new MotdMatcher.Builder<>();
+        for (String keyword : keywords) {
+            builder.add(keyword, keyword);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,84 @@
+package dev.akgamerz_790.discordmc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * How {@link PendingRequests} settles the nonces the client sends: the acknowledged, rejected,
+ * dropped and abandoned counts the IPC harness and {@code /discordmc status} report.
+ */
+class PendingRequestsTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void acksAndRejectsByNonce() {
+        PendingRequests pending = new PendingRequests();
+        DiscordIpcClient.Activity first = activity("first");
+        DiscordIpcClient.Activity second = activity("second");
+        long a = pending.add(first, 0L);
+        long b = pending.add(second, 0L);
+        assertEquals(1L, a);
+        assertEquals(2L, b);
+        assertEquals(2L, pending.size());
+
+        assertTrue(pending.ack(a, SECOND));
+        assertFalse(pending.ack(a, SECOND));
+        assertSame(second, pending.reject(b));
+        assertNull(pending.reject(b));
+        assertNull(pending.reject(-1L));
+        assertEquals(new PendingRequests.Stats(1, 1, 0, 0, 0), pending.stats());
+    }
+
+    @Test
+    void unansweredRequestsExpireAsDropped() {
+        PendingRequests pending = new PendingRequests();
+        long old = pending.add(activity("old"), 0L);
+        pending.add(activity("new"), 5 * SECOND);
+
+        pending.expire(10 * SECOND);
+        assertEquals(2L, pending.size());
+        pending.expire(11 * SECOND);
+        assertEquals(1L, pending.size());
+        assertFalse(pending.ack(old, 11 * SECOND));
+        assertEquals(new PendingRequests.Stats(0, 0, 1, 0, 1), pending.stats());
+    }
+
+    @Test
+    void overwritingASlotDropsTheOlderRequest() {
+        PendingRequests pending = new PendingRequests();
+        long first = pending.add(activity("first"), 0L);
+        for (int i = 1; i < PendingRequests.CAPACITY; i++) {
+            pending.add(activity("filler"), 0L);
+        }
+        long wrapped = pending.add(activity("wrapped"), 0L);
+
+        assertEquals(PendingRequests.CAPACITY, pending.stats().pending());
+        assertEquals(1L, pending.stats().dropped());
+        assertFalse(pending.ack(first, 0L));
+        assertTrue(pending.ack(wrapped, 0L));
+    }
+
+    @Test
+    void resetAbandonsWhatIsWaitingAndRestartsNonces() {
+        PendingRequests pending = new PendingRequests();
+        pending.add(activity("a"), 0L);
+        long acked = pending.add(activity("b"), 0L);
+        pending.add(activity("c"), 0L);
+        pending.ack(acked, 0L);
+
+        pending.reset();
+        assertEquals(new PendingRequests.Stats(1, 0, 0, 2, 0), pending.stats());
+        assertEquals(1L, pending.add(activity("d"), 0L));
+        pending.reset();
+        assertEquals(3L, pending.stats().abandoned());
+    }
+
+    private static DiscordIpcClient.Activity activity(String state) {
+        return new DiscordIpcClient.Activity(null, state, null, null, null, null, null, 0, 0, null, 0L);
+    }
+}
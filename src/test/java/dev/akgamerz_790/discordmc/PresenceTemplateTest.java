@@ -0,0 +1,269 @@
+package dev.akgamerz_790.discordmc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The default templates must render the lines the hard-coded layout built before them; the rest
+ * covers the template syntax and the renderer's per-slot cache.
+ */
+class PresenceTemplateTest {
+    private static final PresenceTemplate.Compiled DEFAULTS = PresenceTemplate.Compiled.compile(new DiscordMCConfig.Templates());
+
+    private final PresenceTemplate.Renderer renderer = new PresenceTemplate.Renderer();
+
+    @Test
+    void defaultMultiplayerLinesMatchTheBaseline() {
+        String[] servers = {"", "Hypixel", "Other"};
+        // Every server against every subset of the ten other inputs being set.
+        for (int combo = 0; combo < servers.length << 10; combo++) {
+            String server = servers[combo % servers.length];
+            int set = combo / servers.length;
+            boolean showName = (set & 1) != 0;
+            String address = (set & 2) != 0 ? "mc.example.net" : "";
+            String players = (set & 4) != 0 ? "5/10" : "";
+            String mode = (set & 8) != 0 ? "Bed Wars" : "";
+            String variant = (set & 16) != 0 ? "4v4" : "";
+            String map = (set & 32) != 0 ? "Lighthouse" : "";
+            String team = (set & 64) != 0 ? "RED" : "";
+            String motd = (set & 128) != 0 ? "Welcome" : "";
+            String menu = (set & 256) != 0 ? "In Minecraft" : "";
+            boolean dimension = (set & 512) != 0;
+            if (mode.isEmpty() && !variant.isEmpty()) {
+                continue;
+            }
+
+            boolean hypixel = "Hypixel".equalsIgnoreCase(server);
+            renderer.set(PresenceTemplate.SERVER, showName ? server : "");
+            renderer.set(PresenceTemplate.ADDRESS, address);
+            renderer.set(PresenceTemplate.PLAYERS, players);
+            renderer.set(PresenceTemplate.MODE, mode);
+            renderer.set(PresenceTemplate.VARIANT, variant);
+            renderer.set(PresenceTemplate.MAP, map);
+            renderer.set(PresenceTemplate.TEAM, team);
+            renderer.set(PresenceTemplate.MOTD, motd);
+            renderer.set(PresenceTemplate.MENU, menu);
+            renderer.set(PresenceTemplate.HYPIXEL, hypixel ? server : "");
+            renderer.set(PresenceTemplate.DIMENSION, dimension ? "Overworld" : "");
+            renderer.set(PresenceTemplate.WORLD, dimension ? "overworld" : "");
+
+            String inputs = server + " with inputs " + Integer.toBinaryString(set);
+            assertEquals(legacyDetails(hypixel, mode, map, team, motd, menu, dimension),
+                renderer.details(DEFAULTS.multiplayerDetails()), () -> "details for " + inputs);
+            assertEquals(legacyState(server, showName, hypixel, address, players, mode, variant, map),
+                renderer.state(DEFAULTS.multiplayerState()), () -> "state for " + inputs);
+        }
+    }
+
+    @Test
+    void defaultSingleplayerLinesMatchTheBaseline() {
+        renderer.set(PresenceTemplate.SINGLEPLAYER, "Playing singleplayer");
+        renderer.set(PresenceTemplate.DIMENSION, "Nether");
+        assertEquals("Singleplayer", renderer.details(DEFAULTS.singleplayerDetails()));
+        assertEquals("Playing singleplayer | Nether", renderer.state(DEFAULTS.singleplayerState()));
+
+        renderer.set(PresenceTemplate.DIMENSION, "");
+        assertEquals("Playing singleplayer", renderer.state(DEFAULTS.singleplayerState()));
+    }
+
+    @Test
+    void malformedTemplatesAreRejected() {
+        assertMalformed("{nope}", "unknown placeholder '{nope}'");
+        assertMalformed("[{?nope}]", "unknown placeholder '{nope}'");
+        assertMalformed("{}", "unknown placeholder '{}'");
+        assertMalformed("a {server", "unclosed '{' at 2");
+        assertMalformed("x [a[b]", "unclosed '[' at 2");
+        assertMalformed("[a||b", "unclosed '[' at 0");
+        assertMalformed("a]", "unmatched ']' at 1");
+        assertMalformed("[a]]", "unmatched ']' at 3");
+    }
+
+    @Test
+    void malformedConfiguredTemplateFallsBackToTheDefault() {
+        DiscordMCConfig.Templates configured = new DiscordMCConfig.Templates();
+        configured.multiplayerState = "[oops";
+        configured.singleplayerState = "{singleplayer} in {dimension}";
+        PresenceTemplate.Compiled compiled = PresenceTemplate.Compiled.compile(configured);
+
+        renderer.set(PresenceTemplate.SERVER, "Hypixel");
+        renderer.set(PresenceTemplate.SINGLEPLAYER, "Solo");
+        renderer.set(PresenceTemplate.DIMENSION, "End");
+        assertEquals("Playing on Hypixel", renderer.state(compiled.multiplayerState()));
+        assertEquals("Solo in End", renderer.state(compiled.singleplayerState()));
+    }
+
+    @Test
+    void escapesAreLiteral() {
+        renderer.set(PresenceTemplate.TEAM, "RED");
+        assertEquals("[RED] {team} a\\b", render("\\[{team}\\] \\{team} a\\\\b"));
+        // A trailing backslash has nothing to escape and stays as it is.
+        assertEquals("end\\", render("end\\"));
+    }
+
+    @Test
+    void placeholdersOutsideSectionsAlwaysRender() {
+        renderer.set(PresenceTemplate.MODE, "Skywars");
+        assertEquals("Skywars on ", render("{mode} on {map}"));
+        assertEquals("", render("{?server}{!mode}"));
+    }
+
+    @Test
+    void sectionNeedsEveryPlaceholderDirectlyInside() {
+        String template = "[{server} ({players})][ on {map}[ \\[{team}\\]]]";
+        assertEquals("", render(template));
+
+        renderer.set(PresenceTemplate.SERVER, "Hypixel");
+        assertEquals("", render(template));
+        renderer.set(PresenceTemplate.PLAYERS, "5/10");
+        assertEquals("Hypixel (5/10)", render(template));
+
+        // The nested section's placeholder does not hold back the outer one.
+        renderer.set(PresenceTemplate.TEAM, "RED");
+        assertEquals("Hypixel (5/10)", render(template));
+        renderer.set(PresenceTemplate.MAP, "Lighthouse");
+        assertEquals("Hypixel (5/10) on Lighthouse [RED]", render(template));
+        renderer.set(PresenceTemplate.TEAM, "");
+        assertEquals("Hypixel (5/10) on Lighthouse", render(template));
+    }
+
+    @Test
+    void guardsCombine() {
+        String template = "[{?mode}{?hypixel}both||{?mode}{!hypixel}mode only||{!mode}{?hypixel}hypixel only||{!mode}{!hypixel}neither]";
+        assertEquals("neither", render(template));
+        renderer.set(PresenceTemplate.MODE, "Bed Wars");
+        assertEquals("mode only", render(template));
+        renderer.set(PresenceTemplate.HYPIXEL, "Hypixel");
+        assertEquals("both", render(template));
+        renderer.set(PresenceTemplate.MODE, "");
+        assertEquals("hypixel only", render(template));
+
+        // Guards render nothing, and a forbidden placeholder alone blocks the section.
+        assertEquals("", render("[{!hypixel}{server}]"));
+        renderer.set(PresenceTemplate.SERVER, "Other");
+        assertEquals("", render("[{!hypixel}{server}]"));
+        renderer.set(PresenceTemplate.HYPIXEL, "");
+        assertEquals("Other", render("[{!hypixel}{server}]"));
+    }
+
+    @Test
+    void firstAlternativeThatHoldsWins() {
+        String template = "[{server}||{address}||{players} online||nowhere]";
+        assertEquals("nowhere", render(template));
+        renderer.set(PresenceTemplate.PLAYERS, "5");
+        assertEquals("5 online", render(template));
+        renderer.set(PresenceTemplate.ADDRESS, "mc.example.net");
+        assertEquals("mc.example.net", render(template));
+        renderer.set(PresenceTemplate.SERVER, "Example");
+        assertEquals("Example", render(template));
+
+        // Without a catch-all, a section where nothing holds renders nothing.
+        renderer.clear();
+        assertEquals("<>", render("<[{server}||{address}]>"));
+    }
+
+    @Test
+    void usedCoversGuardsAndPlaceholders() {
+        PresenceTemplate template = PresenceTemplate.compile("{server}[{?hypixel}x||{!mode}y] \\{map}");
+        assertEquals(PresenceTemplate.bit(PresenceTemplate.SERVER) | PresenceTemplate.bit(PresenceTemplate.HYPIXEL)
+            | PresenceTemplate.bit(PresenceTemplate.MODE), template.used());
+    }
+
+    @Test
+    void slotsCacheUntilAValueTheyReadChanges() {
+        PresenceTemplate details = PresenceTemplate.compile("Playing {mode}");
+        PresenceTemplate state = PresenceTemplate.compile("on {server}");
+        renderer.set(PresenceTemplate.MODE, "Bed Wars");
+        renderer.set(PresenceTemplate.SERVER, "Hypixel");
+
+        String firstDetails = renderer.details(details);
+        String firstState = renderer.state(state);
+        assertEquals("Playing Bed Wars", firstDetails);
+        assertEquals("on Hypixel", firstState);
+        assertSame(firstDetails, renderer.details(details));
+
+        // Setting an equal value, or one the template does not read, keeps the cached line.
+        renderer.set(PresenceTemplate.MODE, "Bed Wars");
+        renderer.set(PresenceTemplate.MAP, "Lighthouse");
+        assertSame(firstDetails, renderer.details(details));
+        assertSame(firstState, renderer.state(state));
+
+        renderer.set(PresenceTemplate.MODE, "Skywars");
+        String secondDetails = renderer.details(details);
+        assertEquals("Playing Skywars", secondDetails);
+        assertSame(firstState, renderer.state(state));
+
+        // Changing back re-renders; the cache holds one line per slot, not per value.
+        renderer.set(PresenceTemplate.MODE, "Bed Wars");
+        String thirdDetails = renderer.details(details);
+        assertEquals("Playing Bed Wars", thirdDetails);
+        assertNotSame(firstDetails, thirdDetails);
+
+        // A different template in the same slot is rendered, even with the values unchanged.
+        assertEquals("Bed Wars", renderer.details(PresenceTemplate.compile("{mode}")));
+        assertEquals("Playing Bed Wars", renderer.details(details));
+    }
+
+    private String render(String template) {
+        return renderer.details(PresenceTemplate.compile(template));
+    }
+
+    private static void assertMalformed(String template, String message) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> PresenceTemplate.compile(template));
+        assertEquals(message, e.getMessage(), () -> "message for " + template);
+    }
+
+    // The multiplayer details the service built before templates; null became no details line.
+    private static String legacyDetails(boolean hypixel, String mode, String map, String team, String motd, String menu, boolean dimension) {
+        String details = null;
+        if (!mode.isEmpty()) {
+            if (hypixel) {
+                if (!team.isEmpty()) {
+                    details = "Team " + team;
+                }
+            } else {
+                details = "Playing " + withMap(mode, map);
+                if (!team.isEmpty()) {
+                    details += " [" + team + "]";
+                }
+            }
+        }
+        if (details == null && !motd.isEmpty()) {
+            details = motd;
+        }
+        if (details == null) {
+            if (!menu.isEmpty()) {
+                details = menu;
+            } else if (dimension) {
+                details = "In the overworld";
+            }
+        }
+        return details == null ? "" : details;
+    }
+
+    private static String legacyState(String server, boolean showName, boolean hypixel, String address, String players,
+                                      String mode, String variant, String map) {
+        String state = "Playing multiplayer";
+        if (showName && !server.isEmpty()) {
+            state = "Playing on " + server;
+        }
+        if (!address.isEmpty()) {
+            state += " (" + address + ")";
+        }
+        if (!players.isEmpty()) {
+            state += " (" + players + ")";
+        }
+        String modeWithVariant = withMap(mode.isEmpty() || variant.isEmpty() ? mode : mode + " " + variant, map);
+        if (hypixel && !modeWithVariant.isEmpty()) {
+            state += " | Playing " + modeWithVariant;
+        }
+        return state;
+    }
+
+    private static String withMap(String mode, String map) {
+        return mode.isEmpty() || map.isEmpty() ? mode : mode + " on " + map;
+    }
+}
@@ -0,0 +1,92 @@
+package dev.akgamerz_790.discordmc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compiling the config's {@code sidebarRules} and what a compiled rule list takes from a line.
+ */
+class SidebarRulesTest {
+    @Test
+    void literalYieldsWhatFollowsIgnoringCase() {
+        SidebarRules rules = compile(rule("map", "Map:", false));
+        assertEquals(new SidebarRules.Match("", SidebarRules.NO_RULE, "Lighthouse", 0), rules.apply("MAP:   Lighthouse  "));
+        assertEquals(new SidebarRules.Match("", SidebarRules.NO_RULE, "Lighthouse", 0), rules.apply("Current map: Lighthouse"));
+        // A literal at the very end yields nothing, which is no match.
+        assertSame(SidebarRules.Match.NONE, rules.apply("Map:"));
+        assertSame(SidebarRules.Match.NONE, rules.apply("Ma"));
+        assertSame(SidebarRules.Match.NONE, rules.apply(""));
+    }
+
+    @Test
+    void literalIsNotARegex() {
+        SidebarRules rules = compile(rule("mode", "Mode (", false));
+        assertEquals("Solo)", rules.apply("mode (Solo)").mode());
+        assertSame(SidebarRules.Match.NONE, rules.apply("Mode Solo"));
+    }
+
+    @Test
+    void regexYieldsItsFirstGroupOrWhatFollows() {
+        SidebarRules rules = compile(rule("mode", "mode: (\\w+)", true), rule("map", "^map\\s*-", true));
+        SidebarRules.Match grouped = rules.apply("MODE: Doubles extra");
+        assertEquals("Doubles", grouped.mode());
+        assertEquals(0, grouped.modeRule(), () -> "mode rule");
+
+        SidebarRules.Match following = rules.apply("Map -  Aquarium ");
+        assertEquals("Aquarium", following.map());
+        assertEquals(1, following.mapRule(), () -> "map rule");
+        assertEquals(SidebarRules.NO_RULE, following.modeRule(), () -> "mode rule");
+
+        // An optional group that did not take part falls back to what follows the match.
+        assertEquals("rest", compile(rule("map", "map(:)?", true)).apply("map rest").map());
+    }
+
+    @Test
+    void firstMatchingRulePerFieldWins() {
+        SidebarRules rules = compile(
+            rule("mode", "Game:", false),
+            rule("mode", "Mode:", false),
+            rule("map", "Map:", false),
+            rule("mode", "(\\w+) Mode", true));
+        SidebarRules.Match match = rules.apply("Mode: Solo Map: Lighthouse");
+        assertEquals(new SidebarRules.Match("Solo Map: Lighthouse", 1, "Lighthouse", 2), match);
+
+        // A rule that matches but yields nothing does not claim the field.
+        assertEquals(new SidebarRules.Match("Solo", 3, "", SidebarRules.NO_RULE), rules.apply("Solo Mode:"));
+    }
+
+    @Test
+    void invalidRulesAreSkipped() {
+        SidebarRules rules = compile(
+            null,
+            rule("map", "", false),
+            rule("map", null, false),
+            rule("team", "Team:", false),
+            rule(null, "Team:", false),
+            rule("map", "([unclosed", true),
+            rule(" MAP ", "Map:", false));
+        assertEquals(new SidebarRules.Match("", SidebarRules.NO_RULE, "Lighthouse", 0), rules.apply("Map: Lighthouse"));
+        assertSame(SidebarRules.Match.NONE, rules.apply("Team: Red"));
+
+        assertSame(SidebarRules.NONE, compile(rule("team", "Team:", false), rule("map", "(", true)));
+        assertSame(SidebarRules.NONE, SidebarRules.compile(null));
+        assertSame(SidebarRules.NONE, SidebarRules.compile(List.of()));
+        assertTrue(SidebarRules.NONE.isEmpty());
+        assertSame(SidebarRules.Match.NONE, SidebarRules.NONE.apply("Map: Lighthouse"));
+    }
+
+    private static SidebarRules compile(DiscordMCConfig.SidebarRule... rules) {
+        return SidebarRules.compile(new ArrayList<>(Arrays.asList(rules)));
+    }
+
+    private static DiscordMCConfig.SidebarRule rule(String field, String match, boolean regex) {
+        return new DiscordMCConfig.SidebarRule(field, match, regex);
+    }
+}